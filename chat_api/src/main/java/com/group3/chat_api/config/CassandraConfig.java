@@ -1,13 +1,23 @@
 package com.group3.chat_api.config;
 
+import com.datastax.oss.driver.api.core.CqlSession;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.cassandra.ReactiveSession;
 import org.springframework.data.cassandra.config.AbstractCassandraConfiguration;
 import org.springframework.data.cassandra.config.SchemaAction;
+import org.springframework.data.cassandra.core.ReactiveCassandraTemplate;
+import org.springframework.data.cassandra.core.convert.CassandraConverter;
+import org.springframework.data.cassandra.core.cql.session.DefaultBridgedReactiveSession;
 import org.springframework.data.cassandra.repository.config.EnableCassandraRepositories;
+import org.springframework.data.cassandra.repository.config.EnableReactiveCassandraRepositories;
 
+// Blocking repositories serve the write paths; the Reactive* repositories serve the REST read
+// paths so a request thread is never parked on Cassandra. Each annotation only picks up its own kind.
 @Configuration
 @EnableCassandraRepositories(basePackages = "com.group3")
+@EnableReactiveCassandraRepositories(basePackages = "com.group3")
 public class CassandraConfig extends AbstractCassandraConfiguration {
     @Value("${spring.data.cassandra.keyspace-name}")
     private String keySpace;
@@ -45,4 +55,15 @@ public class CassandraConfig extends AbstractCassandraConfiguration {
     public int getPort() {
         return port;
     }
-}
\ No newline at end of file
+
+    @Bean
+    public ReactiveSession reactiveCassandraSession(CqlSession session) {
+        return new DefaultBridgedReactiveSession(session);
+    }
+
+    @Bean
+    public ReactiveCassandraTemplate reactiveCassandraTemplate(ReactiveSession reactiveCassandraSession,
+                                                               CassandraConverter cassandraConverter) {
+        return new ReactiveCassandraTemplate(reactiveCassandraSession, cassandraConverter);
+    }
+}
@@ -2,6 +2,7 @@ package com.group3.chat_api.config;
 
 import org.springframework.amqp.core.*;
 import org.springframework.amqp.rabbit.annotation.EnableRabbit;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -34,6 +35,18 @@ public class RabbitMQConfig {
     @Value("${spring.data.rabbitmq.auth-routing-key}")
     private String authRoutingKey;
 
+    @Value("${chat.match.concurrency:4}")
+    private int matchConcurrency;
+
+    @Value("${chat.match.prefetch:100}")
+    private int matchPrefetch;
+
+    @Value("${chat.match.batch-size:50}")
+    private int matchBatchSize;
+
+    @Value("${chat.match.retry-delay-ms:5000}")
+    private int matchRetryDelayMs;
+
     @Bean
     public CachingConnectionFactory connectionFactory() {
         CachingConnectionFactory connectionFactory = new CachingConnectionFactory();
@@ -41,14 +54,51 @@ public class RabbitMQConfig {
         connectionFactory.setPort(port);
         connectionFactory.setUsername(username);
         connectionFactory.setPassword(password);
+        // Lets the outbox relay wait for broker confirms and spot unroutable messages
+        connectionFactory.setPublisherConfirmType(CachingConnectionFactory.ConfirmType.CORRELATED);
+        connectionFactory.setPublisherReturns(true);
         return connectionFactory;
     }
 
+    // Match events are consumed in batches with manual acks so a message is only acked once
+    // its conversation rows are written
+    @Bean
+    public SimpleRabbitListenerContainerFactory matchListenerContainerFactory(CachingConnectionFactory connectionFactory) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setConcurrentConsumers(matchConcurrency);
+        factory.setMaxConcurrentConsumers(matchConcurrency);
+        factory.setPrefetchCount(matchPrefetch);
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(matchBatchSize);
+        return factory;
+    }
+
     @Bean
     public Queue matchQueue() {
         return new Queue(matchQueue);
     }
 
+    // A match event that failed to write waits out the delay here, then dead-letters back onto
+    // the match queue through the default exchange. The match queue itself keeps its arguments,
+    // so it doesn't have to be redeclared on brokers where it already exists.
+    @Bean
+    public Queue matchRetryQueue() {
+        return QueueBuilder.durable(matchQueue + ".retry")
+                .ttl(matchRetryDelayMs)
+                .deadLetterExchange("")
+                .deadLetterRoutingKey(matchQueue)
+                .build();
+    }
+
+    // Match events that still fail after chat.match.max-attempts are parked here for replay
+    @Bean
+    public Queue matchDeadLetterQueue() {
+        return new Queue(matchQueue + ".dead");
+    }
+
     @Bean
     public Queue authQueue() {
         return new Queue(authQueue);
@@ -69,6 +119,17 @@ public class RabbitMQConfig {
         return new TopicExchange("proj2.chat");
     }
 
+    @Bean
+    public FanoutExchange presenceExchange() {
+        return new FanoutExchange("proj2.presence");
+    }
+
+    // Each node gets its own exclusive auto-delete queue so every node sees every presence update
+    @Bean
+    public Queue presenceQueue() {
+        return new AnonymousQueue();
+    }
+
     @Bean
     public Binding bindingMatch(Queue matchQueue, Exchange exchange) {
         return BindingBuilder.bind(matchQueue)
@@ -91,4 +152,10 @@ public class RabbitMQConfig {
                 .to(chatExchange)
                 .with("#");
     }
+
+    @Bean
+    public Binding bindingPresence(Queue presenceQueue, FanoutExchange presenceExchange) {
+        return BindingBuilder.bind(presenceQueue)
+                .to(presenceExchange);
+    }
 }
@@ -1,22 +1,101 @@
 package com.group3.chat_api.config;
 
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
 import com.group3.chat_api.controller.ConversationController;
+import com.group3.chat_api.handler.RateLimitChannelInterceptor;
+import com.group3.chat_api.handler.SharedFrameStompEncoder;
+import com.group3.chat_api.handler.StripedInboundExecutor;
+import com.group3.chat_api.handler.WireFormatChannelInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.messaging.StompSubProtocolHandler;
+import org.springframework.web.socket.messaging.SubProtocolHandler;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
 import org.springframework.web.socket.config.annotation.*;
 
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     private static final Logger log = LoggerFactory.getLogger(ConversationController.class);
 
+    // "simple" keeps the in-memory broker for local dev; "relay" forwards /topic to RabbitMQ's
+    // STOMP plugin so every chat_api instance sees every broadcast
+    @Value("${chat.broker.mode:simple}")
+    private String brokerMode;
+
+    @Value("${spring.data.rabbitmq.host:localhost}")
+    private String relayHost;
+
+    @Value("${chat.broker.relay-port:61613}")
+    private int relayPort;
+
+    @Value("${chat.broker.virtual-host:/}")
+    private String relayVirtualHost;
+
+    @Value("${spring.data.rabbitmq.username:guest}")
+    private String relayUsername;
+
+    @Value("${spring.data.rabbitmq.password:guest}")
+    private String relayPassword;
+
+    @Value("${chat.broker.heartbeat-ms:10000}")
+    private long heartbeatMs;
+
+    @Value("${chat.ws.message-size-limit:65536}")
+    private int messageSizeLimit;
+
+    @Value("${chat.ws.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+
+    @Value("${chat.ws.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    // Tomcat offers permessage-deflate whenever a client asks for it; this allows turning it off
+    @Value("${chat.ws.permessage-deflate:true}")
+    private boolean perMessageDeflate;
+
+    @Value("${chat.inbound.stripes:0}")
+    private int inboundStripes;
+
+    @Value("${chat.inbound.queue-capacity:1000}")
+    private int inboundQueueCapacity;
+
+    @Value("${chat.inbound.offer-timeout-ms:100}")
+    private long inboundOfferTimeoutMs;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private RateLimitChannelInterceptor rateLimitChannelInterceptor;
+
+    @Autowired
+    private WireFormatChannelInterceptor wireFormatChannelInterceptor;
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         String allowedOriginsStr = System.getenv("ALLOWED_ORIGINS");
@@ -39,17 +118,131 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         }
 
         registry.addEndpoint("/ws")
+                .setHandshakeHandler(handshakeHandler())
                 .setAllowedOrigins(allowedOrigins)
                 .withSockJS();
+
+        // Plain WebSocket for mobile clients. SockJS can only carry text, so binary CBOR frames
+        // are only offered on this endpoint.
+        registry.addEndpoint("/ws-native")
+                .setHandshakeHandler(handshakeHandler())
+                .addInterceptors(binaryFramesInterceptor())
+                .setAllowedOrigins(allowedOrigins);
+    }
+
+    private DefaultHandshakeHandler handshakeHandler() {
+        return new DefaultHandshakeHandler() {
+            @Override
+            protected List<WebSocketExtension> filterRequestedExtensions(ServerHttpRequest request,
+                                                                         List<WebSocketExtension> requested,
+                                                                         List<WebSocketExtension> supported) {
+                List<WebSocketExtension> extensions = super.filterRequestedExtensions(request, requested, supported);
+                if (perMessageDeflate) {
+                    return extensions;
+                }
+                return extensions.stream()
+                        .filter(extension -> !"permessage-deflate".equals(extension.getName()))
+                        .toList();
+            }
+        };
+    }
+
+    private HandshakeInterceptor binaryFramesInterceptor() {
+        return new HandshakeInterceptor() {
+            @Override
+            public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                           WebSocketHandler wsHandler, Map<String, Object> attributes) {
+                attributes.put(WireFormatChannelInterceptor.BINARY_FRAMES_ATTRIBUTE, true);
+                return true;
+            }
+
+            @Override
+            public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                       WebSocketHandler wsHandler, Exception exception) {
+            }
+        };
+    }
+
+    // A session whose outbound buffer or send time exceeds these limits is closed instead of
+    // holding buffered broadcasts for everyone else
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration
+                .setMessageSizeLimit(messageSizeLimit)
+                .setSendTimeLimit(sendTimeLimitMs)
+                .setSendBufferSizeLimit(sendBufferSizeLimit);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // Two stripes per core unless configured, so a slow conversation can't hold up a whole core
+        int stripes = inboundStripes > 0 ? inboundStripes : Runtime.getRuntime().availableProcessors() * 2;
+        registration.taskExecutor(new StripedInboundExecutor(meterRegistry, stripes, inboundQueueCapacity,
+                inboundOfferTimeoutMs));
+        registration.interceptors(rateLimitChannelInterceptor, wireFormatChannelInterceptor);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.interceptors(wireFormatChannelInterceptor);
+    }
+
+    // Inbound SEND frames with content-type application/cbor are decoded with CBOR; strict matching
+    // keeps every other frame (and all outbound conversion) on the default JSON converter
+    @Override
+    public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
+        MappingJackson2MessageConverter cborConverter =
+                new MappingJackson2MessageConverter(WireFormatChannelInterceptor.CBOR);
+        cborConverter.setObjectMapper(new CBORMapper());
+        cborConverter.setStrictContentTypeMatch(true);
+        messageConverters.add(cborConverter);
+        return true;
     }
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
-        registry
-                .setApplicationDestinationPrefixes("/chat")
-                .enableSimpleBroker("/topic")
+        registry.setApplicationDestinationPrefixes("/chat");
+
+        if ("relay".equalsIgnoreCase(brokerMode)) {
+            log.info("Using STOMP broker relay at {}:{}", relayHost, relayPort);
+            // The relay reconnects its system session on its own; availability changes are
+            // logged by WebSocketEventListener and clients are sent an ERROR so they reconnect
+            registry.enableStompBrokerRelay("/topic")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setVirtualHost(relayVirtualHost)
+                    .setClientLogin(relayUsername)
+                    .setClientPasscode(relayPassword)
+                    .setSystemLogin(relayUsername)
+                    .setSystemPasscode(relayPassword)
+                    .setSystemHeartbeatSendInterval(heartbeatMs)
+                    .setSystemHeartbeatReceiveInterval(heartbeatMs);
+            return;
+        }
+
+        registry.enableSimpleBroker("/topic")
                 .setTaskScheduler(heartBeatScheduler())
-                .setHeartbeatValue(new long[] {10000L, 10000L});
+                .setHeartbeatValue(new long[] {heartbeatMs, heartbeatMs});
+    }
+
+    // The STOMP handler is only attached to the WebSocket handler when /ws is registered, so the
+    // encoder is swapped once every singleton exists rather than in a BeanPostProcessor
+    @Bean
+    public SmartInitializingSingleton sharedFrameEncoderInstaller(
+            @Qualifier("subProtocolWebSocketHandler") WebSocketHandler webSocketHandler) {
+        return () -> {
+            WebSocketHandler handler = webSocketHandler instanceof WebSocketHandlerDecorator decorator
+                    ? decorator.getLastHandler()
+                    : webSocketHandler;
+            if (!(handler instanceof SubProtocolWebSocketHandler subProtocolHandler)) {
+                return;
+            }
+            for (SubProtocolHandler protocolHandler : subProtocolHandler.getProtocolHandlers()) {
+                if (protocolHandler instanceof StompSubProtocolHandler stompHandler) {
+                    stompHandler.setEncoder(new SharedFrameStompEncoder());
+                }
+            }
+        };
     }
 
     @Bean
@@ -1,43 +1,113 @@
 package com.group3.chat_api.controller;
 
+import com.group3.chat_api.dto.ChatCursor;
+import com.group3.chat_api.dto.ChatPageResponse;
 import com.group3.chat_api.dto.ChatResponse;
+import com.group3.chat_api.dto.ChatSearchHit;
 import com.group3.chat_api.mapper.ChatMapper;
-import com.group3.chat_api.model.Chat;
+import com.group3.chat_api.mapper.ConversationManagerMapper;
+import com.group3.chat_api.service.ChatSearchService;
 import com.group3.chat_api.service.ChatService;
+import com.group3.chat_api.service.ConversationManagerService;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/chat")
 @RequiredArgsConstructor
 public class ChatController {
     private static final Logger log = LoggerFactory.getLogger(ChatController.class);
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_RESUME_SIZE = 500;
     private final ChatService chatService;
     private final ChatMapper chatMapper;
+    private final ChatSearchService chatSearchService;
+    private final ConversationManagerService conversationManagerService;
+    private final ConversationManagerMapper conversationManagerMapper;
+
+    // Served entirely from the in-memory index, limited to the caller's current conversations
+    @GetMapping("/search")
+    public Mono<ResponseEntity<List<ChatSearchHit>>> search(@RequestParam String q,
+                                                            @RequestParam(defaultValue = "20") int limit,
+                                                            @RequestHeader("X-User-Id") String userId) {
+        if (q.isBlank() || limit < 1 || limit > MAX_PAGE_SIZE) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        return conversationManagerService.getAllConversations(userId)
+                .map(conversationManagerMapper::toConversationId)
+                .collect(Collectors.toSet())
+                .map(conversationIds -> ResponseEntity.ok(chatSearchService.search(userId, conversationIds, q, limit)
+                        .stream()
+                        .map(chatMapper::toSearchHit)
+                        .toList()))
+                .onErrorResume(e -> {
+                    log.error("Error searching chats: ", e);
+                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                            .<List<ChatSearchHit>>build());
+                });
+    }
 
     @GetMapping("/{conversationId}")
-    public ResponseEntity<List<ChatResponse>> getChat(@PathVariable UUID conversationId,
-                                                      @RequestHeader("X-User-Id") String userId) {
-        try {
-            List<Chat> chatList = chatService.getChats(conversationId);
+    public Mono<ResponseEntity<List<ChatResponse>>> getChat(@PathVariable UUID conversationId,
+                                                            @RequestHeader("X-User-Id") String userId) {
+        return chatService.getChats(conversationId)
+                .map(chatList -> ResponseEntity.ok(chatList.stream()
+                        .map(chatMapper::toResponse)
+                        .toList()
+                        ))
+                .doOnError(e -> log.error("Error retrieving chats by id: ", e));
+    }
 
-            if (chatList.isEmpty()) {
-                return ResponseEntity.ok(List.of());
-            }
+    // Chats after the given sequence, oldest first. A full response means there may be more;
+    // the client asks again with the last sequence it received.
+    @GetMapping("/{conversationId}/resume")
+    public Mono<ResponseEntity<List<ChatResponse>>> resumeChat(@PathVariable UUID conversationId,
+                                                               @RequestParam long after,
+                                                               @RequestParam(defaultValue = "" + MAX_RESUME_SIZE) int limit,
+                                                               @RequestHeader("X-User-Id") String userId) {
+        if (after < 0 || limit < 1 || limit > MAX_RESUME_SIZE) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        return chatService.getChatsAfter(conversationId, after, limit)
+                .map(chatMapper::toResponse)
+                .collectList()
+                .map(ResponseEntity::ok)
+                .onErrorResume(e -> {
+                    log.error("Error resuming chats: ", e);
+                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                            .<List<ChatResponse>>build());
+                });
+    }
 
-            return ResponseEntity.ok(chatList.stream()
-                    .map(chatMapper::toResponse)
-                    .toList()
-                    );
-        } catch (Exception e) {
-            log.error("Error retrieving chats by id: ", e);
-            throw new RuntimeException(e);
+    @GetMapping(value = "/{conversationId}", params = "limit")
+    public Mono<ResponseEntity<ChatPageResponse>> getChatPage(@PathVariable UUID conversationId,
+                                                              @RequestParam(required = false) String before,
+                                                              @RequestParam int limit,
+                                                              @RequestHeader("X-User-Id") String userId) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        ChatCursor cursor;
+        try {
+            cursor = before == null || before.isEmpty() ? null : chatMapper.fromCursor(before);
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected chat page request: {}", e.getMessage());
+            return Mono.just(ResponseEntity.badRequest().build());
         }
+        return chatService.getChatsBefore(conversationId, cursor, limit)
+                .map(chatList -> ResponseEntity.ok(chatMapper.toPageResponse(chatList, limit)))
+                .onErrorResume(e -> {
+                    log.error("Error retrieving chat page: ", e);
+                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).<ChatPageResponse>build());
+                });
     }
 }
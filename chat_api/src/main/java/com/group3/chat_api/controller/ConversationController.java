@@ -1,13 +1,14 @@
 package com.group3.chat_api.controller;
 
 import com.group3.chat_api.dto.ConversationResponse;
-import com.group3.chat_api.mapper.ConversationManagerMapper;
 import com.group3.chat_api.mapper.ConversationMapper;
 import com.group3.chat_api.dto.ConversationRequest;
 import com.group3.chat_api.model.Conversation;
 import com.group3.chat_api.model.ConversationManager;
 import com.group3.chat_api.service.ConversationManagerService;
 import com.group3.chat_api.service.ConversationService;
+import com.group3.chat_api.service.InboxService;
+import com.group3.chat_api.service.UnreadCounterService;
 
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
@@ -15,8 +16,9 @@ import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
 
@@ -28,76 +30,68 @@ public class ConversationController {
     private final ConversationService conversationService;
     private final ConversationMapper conversationMapper;
     private final ConversationManagerService conversationManagerService;
-    private final ConversationManagerMapper conversationManagerMapper;
+    private final InboxService inboxService;
+    private final UnreadCounterService unreadCounterService;
 
     @PostMapping
     public ResponseEntity<ConversationResponse> createConversation(@RequestBody ConversationRequest conversationRequest,
                                                                    @RequestHeader("X-User-Id") String userId) {
-        return ResponseEntity.ok(
-                conversationMapper.toResponse(
-                        conversationService.createConversation(
-                                conversationMapper.toEntity(conversationRequest)
-                        )
-                )
+        Conversation conversation = conversationService.createConversation(
+                conversationMapper.toEntity(conversationRequest)
         );
+        for (String participant : Arrays.asList(conversationRequest.getParticipant1(),
+                                                 conversationRequest.getParticipant2())) {
+            if (participant != null && !participant.isEmpty()) {
+                conversationManagerService.addUserToConversation(ConversationManager.builder()
+                        .userId(participant)
+                        .conversationId(conversation.getConversationId())
+                        .build());
+                inboxService.addConversation(participant, conversation);
+            }
+        }
+        return ResponseEntity.ok(conversationMapper.toResponse(conversation));
     }
 
+    // Conversations from before the inbox existed are written to it by InboxBackfillService
     @GetMapping
-    public ResponseEntity<List<ConversationResponse>> getConversations(@RequestHeader("X-User-Id") String userId) {
-        try {
-            List<UUID> userConversations = conversationManagerService.getAllConversations(userId)
-                    .stream()
-                    .map(conversationManagerMapper::toConversationId)
-                    .toList();
-            List<Conversation> conversationList = conversationService.getAllConversations(userConversations);
-            if (userConversations.isEmpty()) {
-                return ResponseEntity.ok(List.of());
-            }
-            return ResponseEntity.ok(
-                    conversationList.stream()
-                            .map(conversationMapper::toResponse)
-                            .toList()
-            );
-        } catch (Exception e) {
-            log.error("Error returning conversation list: ", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+    public Mono<ResponseEntity<List<ConversationResponse>>> getConversations(@RequestHeader("X-User-Id") String userId) {
+        return Mono.zip(inboxService.getInbox(userId), unreadCounterService.getUnread(userId))
+                .map(inboxAndUnread -> inboxAndUnread.getT1().stream()
+                        .map(entry -> conversationMapper.toResponse(entry, inboxAndUnread.getT2()))
+                        .toList())
+                .map(ResponseEntity::ok)
+                .onErrorResume(e -> {
+                    log.error("Error returning conversation list: ", e);
+                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                            .<List<ConversationResponse>>build());
+                });
     }
 
     @GetMapping("/info/{conversationId}")
-    public ResponseEntity<String> getConversationInfo(@PathVariable UUID conversationId,
+    public Mono<ResponseEntity<String>> getConversationInfo(@PathVariable UUID conversationId,
                                                             @RequestHeader("X-User-Id") String userId) {
-        try {
-            List<ConversationManager> infoList = conversationManagerService.getConversationById(conversationId);
-
-            for (ConversationManager convo : infoList) {
-                if (!convo.getUserId().equals(userId)) {
-                    return ResponseEntity.ok(
-                            convo.getUserId()
-                    );
-                }
-            }
-        } catch (Exception e) {
-            log.error("Error getting info for conversation: ", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
-        return null;
+        return conversationManagerService.findMembers(conversationId)
+                .map(ConversationManager::getUserId)
+                .filter(memberId -> !memberId.equals(userId))
+                .next()
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.ok().<String>build())
+                .onErrorResume(e -> {
+                    log.error("Error getting info for conversation: ", e);
+                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).<String>build());
+                });
     }
 
     @GetMapping("/{conversationId}")
-    public ResponseEntity<ConversationResponse> getConversation(@PathVariable UUID conversationId,
-                                                                @RequestHeader("X-User-Id") UUID userId) {
-        try {
-            Conversation conversation = conversationService.getConversation(conversationId);
-            if (conversation == null) {
-                return ResponseEntity.notFound().build();
-            }
-            return ResponseEntity.ok(
-                    conversationMapper.toResponse(conversation)
-            );
-        } catch (Exception e) {
-            log.error("Error returning conversation by id: ", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+    public Mono<ResponseEntity<ConversationResponse>> getConversation(@PathVariable UUID conversationId,
+                                                                      @RequestHeader("X-User-Id") UUID userId) {
+        return conversationService.getConversation(conversationId)
+                .map(conversation -> ResponseEntity.ok(conversationMapper.toResponse(conversation)))
+                .defaultIfEmpty(ResponseEntity.notFound().<ConversationResponse>build())
+                .onErrorResume(e -> {
+                    log.error("Error returning conversation by id: ", e);
+                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                            .<ConversationResponse>build());
+                });
     }
 }
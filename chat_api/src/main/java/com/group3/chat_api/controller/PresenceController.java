@@ -0,0 +1,27 @@
+package com.group3.chat_api.controller;
+
+import com.group3.chat_api.dto.PresenceResponse;
+import com.group3.chat_api.service.PresenceService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/presence")
+@RequiredArgsConstructor
+public class PresenceController {
+    private static final int MAX_USER_IDS = 500;
+    private final PresenceService presenceService;
+
+    @GetMapping
+    public ResponseEntity<Map<String, PresenceResponse>> getPresence(@RequestParam List<String> userIds,
+                                                                     @RequestHeader("X-User-Id") String userId) {
+        if (userIds.size() > MAX_USER_IDS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(presenceService.getPresence(userIds));
+    }
+}
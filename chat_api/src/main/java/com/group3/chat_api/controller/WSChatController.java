@@ -6,18 +6,26 @@ import com.group3.chat_api.mapper.ConversationManagerMapper;
 import com.group3.chat_api.mapper.ConversationMapper;
 import com.group3.chat_api.model.Chat;
 import com.group3.chat_api.model.ChatMessage;
+import com.group3.chat_api.model.MessageType;
 import com.group3.chat_api.service.ChatService;
 import com.group3.chat_api.service.ConversationManagerService;
 import com.group3.chat_api.service.ConversationService;
+import com.group3.chat_api.service.PresenceService;
+import com.group3.chat_api.service.ReadReceiptService;
+import com.group3.chat_api.service.TypingService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.handler.annotation.SendTo;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.stereotype.Controller;
 
+import java.util.Map;
+import java.util.UUID;
+
 @Controller
 public class WSChatController {
     private static final Logger log = LoggerFactory.getLogger(ConversationController.class);
@@ -25,6 +33,14 @@ public class WSChatController {
     private ChatService chatService;
     @Autowired
     private ChatMapper chatMapper;
+    @Autowired
+    private PresenceService presenceService;
+    @Autowired
+    private TypingService typingService;
+    @Autowired
+    private ReadReceiptService readReceiptService;
+    @Autowired
+    private ConversationManagerService conversationManagerService;
 
     @MessageMapping("/sendMessage/{conversationId}")
     @SendTo("/topic/{conversationId}")
@@ -36,15 +52,54 @@ public class WSChatController {
         chatRequest.setSenderId(chatMessage.getSender());
         chatRequest.setMessage(chatMessage.getContent());
 
-        chatService.storeChat(chatMapper.toEntity(chatRequest));
+        // Subscribers get the stored id and sequence so a reconnecting client can resume after it
+        Chat chat = chatService.queueChat(chatMapper.toEntity(chatRequest));
+        chatMessage.setMessageId(chat.getChatId());
+        chatMessage.setSeq(chat.getSeq());
         return chatMessage;
     }
 
+    // Typing indicators are never stored; TypingService decides what reaches /topic/{conversationId}.
+    // Like receipts, the conversation is the destination the inbound stripe was chosen by and the
+    // typist is the session user, so clients can't grow TypingService's state with invented keys.
+    @MessageMapping("/typing/{conversationId}")
+    public void typing(@DestinationVariable UUID conversationId, @Payload ChatMessage chatMessage,
+                       SimpMessageHeaderAccessor headerAccessor) {
+        String userId = sessionUser(headerAccessor);
+        if (userId == null || !conversationManagerService.isMember(conversationId, userId)) {
+            log.debug("Dropping typing update for {} from non-member {}", conversationId, userId);
+            return;
+        }
+        typingService.onTyping(conversationId.toString(), userId, chatMessage.getType() != MessageType.STOP_TYPING);
+    }
+
+    // seq is the highest message the sender has seen; receipts are batched and never echoed directly.
+    // A client can only move its own mark in conversations it belongs to.
+    @MessageMapping("/read/{conversationId}")
+    public void read(@DestinationVariable UUID conversationId, @Payload ChatMessage chatMessage,
+                     SimpMessageHeaderAccessor headerAccessor) {
+        String userId = sessionUser(headerAccessor);
+        if (userId == null || !conversationManagerService.isMember(conversationId, userId)) {
+            log.debug("Dropping read receipt for {} from non-member {}", conversationId, userId);
+            return;
+        }
+        readReceiptService.onRead(conversationId, userId, chatMessage.getSeq());
+    }
+
     @MessageMapping("/addUser")
     @SendTo("/topic/public")
     public ChatMessage addUser(@Payload ChatMessage chatMessage, SimpMessageHeaderAccessor headerAccessor) {
         // Add username in web socket session
         headerAccessor.getSessionAttributes().put("username", chatMessage.getSender());
+        if (chatMessage.getSender() != null) {
+            presenceService.connect(chatMessage.getSender(), headerAccessor.getSessionId());
+        }
         return chatMessage;
     }
-}
\ No newline at end of file
+
+    private static String sessionUser(SimpMessageHeaderAccessor headerAccessor) {
+        Map<String, Object> attributes = headerAccessor.getSessionAttributes();
+        Object username = attributes != null ? attributes.get("username") : null;
+        return username != null ? username.toString() : null;
+    }
+}
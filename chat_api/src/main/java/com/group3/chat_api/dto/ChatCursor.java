@@ -0,0 +1,13 @@
+package com.group3.chat_api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+public class ChatCursor {
+    private Integer bucket;
+    private UUID chatId;
+}
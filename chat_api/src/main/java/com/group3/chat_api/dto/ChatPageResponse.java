@@ -0,0 +1,14 @@
+package com.group3.chat_api.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class ChatPageResponse {
+    private List<ChatResponse> chats;
+    // Pass back as ?before= to load older messages; null once the history is exhausted
+    private String nextCursor;
+}
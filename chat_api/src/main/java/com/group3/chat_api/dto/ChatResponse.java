@@ -11,4 +11,5 @@ public class ChatResponse {
     private UUID chatId;
     private String senderId;
     private String message;
+    private Long seq;
 }
@@ -0,0 +1,18 @@
+package com.group3.chat_api.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+public class ChatSearchHit {
+    private UUID conversationId;
+    private UUID chatId;
+    private String senderId;
+    private String message;
+    private LocalDateTime sentAt;
+    private Long seq;
+}
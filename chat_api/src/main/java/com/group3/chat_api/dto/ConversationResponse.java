@@ -14,4 +14,8 @@ public class ConversationResponse {
     private LocalDateTime createdAt;
     private LocalDateTime expiresAt;
     private Boolean locked;
+    private LocalDateTime lastActivityAt;
+    private String lastMessage;
+    private String lastSenderId;
+    private Integer unreadCount;
 }
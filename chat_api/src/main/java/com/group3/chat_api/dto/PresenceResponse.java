@@ -0,0 +1,13 @@
+package com.group3.chat_api.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+public class PresenceResponse {
+    private Boolean online;
+    private LocalDateTime lastSeen;
+}
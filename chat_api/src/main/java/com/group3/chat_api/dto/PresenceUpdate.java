@@ -0,0 +1,23 @@
+package com.group3.chat_api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Exchanged between chat_api nodes on the proj2.presence fanout exchange
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresenceUpdate {
+    private String nodeId;
+    // A snapshot replaces everything known about the node; otherwise online/offline are deltas
+    private Boolean snapshot;
+    private List<String> online;
+    private List<String> offline;
+    private LocalDateTime sentAt;
+}
@@ -1,40 +1,130 @@
 package com.group3.chat_api.handler;
 
-import com.group3.chat_api.mapper.ConversationManagerMapper;
-import com.group3.chat_api.model.ConversationManager;
-import com.group3.chat_api.service.ConversationManagerService;
+import com.group3.chat_api.service.MatchService;
+import com.group3.chat_api.service.PresenceService;
+import com.rabbitmq.client.Channel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.core.MessageBuilder;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.springframework.stereotype.Component;
 
-import java.util.Map;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 
+@Slf4j
 @Component
 public class RabbitMQConsumer {
+    private static final String ATTEMPTS_HEADER = "x-match-attempts";
 
     @Autowired
     private RabbitTemplate rabbitTemplate;
 
-    private ConversationManagerService conversationManagerService;
-    private ConversationManagerMapper conversationManagerMapper;
+    @Autowired
+    private PresenceService presenceService;
+
+    @Autowired
+    private MatchService matchService;
+
+    @Value("${spring.data.rabbitmq.match-queue}")
+    private String matchQueue;
+
+    @Value("${chat.match.max-attempts:5}")
+    private int matchMaxAttempts;
 
+    // Every chat is relayed to proj2.chat and lands here; this only keeps chat-queue drained, so
+    // it never logs message bodies
     @RabbitListener(queues = "chat-queue")
-    public void receiveWSChat(String message) {
-        System.out.println("Chat Queue: " + message);
+    public void receiveWSChat(Message message) {
+        log.debug("Chat event {} received on chat-queue", message.getMessageProperties().getMessageId());
     }
 
-    @RabbitListener(queues = "match-queue")
-    public void receiveMatch(String message) {
+    @RabbitListener(queues = "#{presenceQueue.name}")
+    public void receivePresence(String message) {
+        presenceService.applyRemote(message);
+    }
+
+    // Each message is acked only after its conversation is written. Malformed events are
+    // acked and dropped. A write failure is republished to the delayed retry queue, and after
+    // max-attempts to the dead-letter queue, rather than requeued straight back onto this one.
+    @RabbitListener(queues = "${spring.data.rabbitmq.match-queue}", containerFactory = "matchListenerContainerFactory")
+    public void receiveMatches(List<Message> messages, Channel channel) throws IOException {
+        Set<UUID> seenInBatch = new HashSet<>();
+        int created = 0;
+
+        for (Message message : messages) {
+            long deliveryTag = message.getMessageProperties().getDeliveryTag();
+            String[] pair = parseMatch(new String(message.getBody(), StandardCharsets.UTF_8));
+            if (pair == null) {
+                channel.basicAck(deliveryTag, false);
+                continue;
+            }
+            if (!seenInBatch.add(MatchService.conversationIdFor(pair[0], pair[1]))) {
+                channel.basicAck(deliveryTag, false);
+                continue;
+            }
+
+            try {
+                if (matchService.createConversation(pair[0], pair[1])) {
+                    created++;
+                }
+                channel.basicAck(deliveryTag, false);
+            } catch (Exception e) {
+                log.error("Error creating conversation for match {} / {}: ", pair[0], pair[1], e);
+                retryLater(message, channel);
+            }
+        }
+        log.info("Processed {} match events, {} new conversations", messages.size(), created);
+    }
+
+    // Conversation ids are derived from the pair, so a retry that races a duplicate is harmless
+    private void retryLater(Message message, Channel channel) throws IOException {
+        long deliveryTag = message.getMessageProperties().getDeliveryTag();
+        Integer previous = message.getMessageProperties().getHeader(ATTEMPTS_HEADER);
+        int attempts = (previous != null ? previous : 0) + 1;
+        String target = attempts >= matchMaxAttempts ? matchQueue + ".dead" : matchQueue + ".retry";
+        try {
+            rabbitTemplate.send("", target, MessageBuilder.fromMessage(message)
+                    .setHeader(ATTEMPTS_HEADER, attempts)
+                    .build());
+            channel.basicAck(deliveryTag, false);
+            if (attempts >= matchMaxAttempts) {
+                log.error("Dead-lettered match event after {} attempts", attempts);
+            }
+        } catch (Exception e) {
+            // The broker can't take the retry either; leave the message with it
+            log.warn("Unable to schedule match retry: {}", e.getMessage());
+            channel.basicNack(deliveryTag, false, true);
+        }
+    }
+
+    // The ML service sends {"user_id": ..., "match": ...}, where match is a user id or an object carrying one
+    private static String[] parseMatch(String message) {
         try {
             JSONObject jsonObject = new JSONObject(message);
-            String username = jsonObject.get("username").toString();
-            System.out.println(username);
-            System.out.println(jsonObject.toString(2)); // Use toString(int indentFactor) for pretty printing
+            String userId = jsonObject.optString("user_id", null);
+            Object match = jsonObject.opt("match");
+            String matchId = match instanceof JSONObject matchObject
+                    ? matchObject.optString("user_id", matchObject.optString("id", null))
+                    : match != null ? match.toString() : null;
+
+            if (userId == null || matchId == null || userId.isEmpty() || matchId.isEmpty() || userId.equals(matchId)) {
+                log.warn("Ignoring match event without two distinct users: {}", message);
+                return null;
+            }
+            return new String[] {userId, matchId};
         } catch (JSONException e) {
-            System.err.println("Error parsing JSON string: " + e.getMessage());
+            log.warn("Error parsing match event: {}", e.getMessage());
+            return null;
         }
     }
 }
@@ -1,35 +1,89 @@
 package com.group3.chat_api.handler;
 
-import lombok.RequiredArgsConstructor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.group3.chat_api.model.OutboxEvent;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.amqp.AmqpException;
-import org.springframework.amqp.rabbit.annotation.RabbitHandler;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.stereotype.Component;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+// Publishes chat events to proj2.chat for downstream consumers (ML, notifications). A batch is
+// sent back to back and then waited on as a whole, so a confirm round trip is paid per batch
+// rather than per message. The AMQP message id is the outbox event id, which stays the same
+// across retries, so consumers can drop redeliveries.
 @Slf4j
 @Service
 public class RabbitMQProducer {
-    @Autowired
-    private RabbitTemplate rabbitTemplate;
+    public static final String CHAT_EXCHANGE = "proj2.chat";
+    private static final String ROUTING_KEY = "chat.message";
 
-    @RabbitHandler
-    public void sendMessage(String conversationId, String message) {
-        Map<String, Object> payload = new HashMap<>();
-        payload.put("conversation_id", conversationId);
-        payload.put("message", message);
-        System.out.println(payload);
+    private final RabbitTemplate rabbitTemplate;
+    private final ObjectMapper objectMapper;
+    private final long confirmTimeoutMs;
 
+    public RabbitMQProducer(ConnectionFactory connectionFactory,
+                            ObjectMapper objectMapper,
+                            @Value("${chat.outbox.confirm-timeout-ms:5000}") long confirmTimeoutMs) {
+        // A template of its own so mandatory publishing doesn't change anyone else's sends
+        this.rabbitTemplate = new RabbitTemplate(connectionFactory);
+        this.rabbitTemplate.setMandatory(true);
+        this.objectMapper = objectMapper;
+        this.confirmTimeoutMs = confirmTimeoutMs;
+    }
+
+    // True only when the broker confirmed and routed every event; otherwise the caller retries the batch
+    public boolean publishBatch(List<OutboxEvent> events) {
+        List<CorrelationData> pending = new ArrayList<>(events.size());
         try {
-            rabbitTemplate.convertAndSend("proj2.chat", "#", "Test from SB Producer");
-        } catch (AmqpException e) {
-            log.error("e: ", e);
-            throw new RuntimeException(e);
+            for (OutboxEvent event : events) {
+                CorrelationData correlation = new CorrelationData(event.getEventId().toString());
+                rabbitTemplate.send(CHAT_EXCHANGE, ROUTING_KEY, toMessage(event), correlation);
+                pending.add(correlation);
+            }
+            for (CorrelationData correlation : pending) {
+                CorrelationData.Confirm confirm = correlation.getFuture().get(confirmTimeoutMs, TimeUnit.MILLISECONDS);
+                if (!confirm.isAck() || correlation.getReturned() != null) {
+                    log.warn("Chat event {} was not accepted by the broker: {}", correlation.getId(),
+                            confirm.isAck() ? "unroutable" : confirm.getReason());
+                    return false;
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            log.error("Failed to publish {} chat events: ", events.size(), e);
+            return false;
         }
     }
+
+    private Message toMessage(OutboxEvent event) throws Exception {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("event_id", event.getEventId());
+        payload.put("conversation_id", event.getConversationId());
+        payload.put("chat_id", event.getChatId());
+        payload.put("seq", event.getSeq());
+        payload.put("sender_id", event.getSenderId());
+        payload.put("message", event.getMessage());
+        payload.put("sent_at", event.getSentAt() != null ? event.getSentAt().toString() : null);
+
+        return MessageBuilder.withBody(objectMapper.writeValueAsBytes(payload))
+                .setContentType(MessageProperties.CONTENT_TYPE_JSON)
+                .setMessageId(event.getEventId().toString())
+                .setDeliveryMode(MessageDeliveryMode.PERSISTENT)
+                .build();
+    }
 }
@@ -0,0 +1,165 @@
+package com.group3.chat_api.handler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Drops inbound SEND frames once a session or its user exceeds their token bucket, before the
+// message reaches the inbound executor or Cassandra. Other frames are never limited.
+@Slf4j
+@Component
+public class RateLimitChannelInterceptor implements ChannelInterceptor {
+    private static final int MAX_IDLE_BUCKETS = 10_000;
+    // Only a new key grows a map, so idle buckets are swept once per this many new keys
+    private static final int PRUNE_EVERY_INSERTS = 1_000;
+    // Typing events arrive at keystroke rate and read receipts at scroll rate. Both are coalesced
+    // downstream, so instead of the budget meant for chat messages they share a separate, larger
+    // per-session one
+    private static final List<String> SIGNAL_PREFIXES = List.of("/chat/typing/", "/chat/read/");
+
+    private final Map<String, TokenBucket> userBuckets = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> sessionBuckets = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> signalBuckets = new ConcurrentHashMap<>();
+    private final AtomicInteger inserts = new AtomicInteger();
+    private final double userRate;
+    private final int userBurst;
+    private final double sessionRate;
+    private final int sessionBurst;
+    private final double signalRate;
+    private final int signalBurst;
+    private final Counter userRejections;
+    private final Counter sessionRejections;
+    private final Counter signalRejections;
+
+    public RateLimitChannelInterceptor(MeterRegistry meterRegistry,
+                                       @Value("${chat.ratelimit.user.per-second:10}") double userRate,
+                                       @Value("${chat.ratelimit.user.burst:20}") int userBurst,
+                                       @Value("${chat.ratelimit.session.per-second:5}") double sessionRate,
+                                       @Value("${chat.ratelimit.session.burst:10}") int sessionBurst,
+                                       @Value("${chat.ratelimit.signal.per-second:20}") double signalRate,
+                                       @Value("${chat.ratelimit.signal.burst:40}") int signalBurst) {
+        this.userRate = userRate;
+        this.userBurst = userBurst;
+        this.sessionRate = sessionRate;
+        this.sessionBurst = sessionBurst;
+        this.signalRate = signalRate;
+        this.signalBurst = signalBurst;
+        this.userRejections = meterRegistry.counter("chat.ratelimit.rejected", "scope", "user");
+        this.sessionRejections = meterRegistry.counter("chat.ratelimit.rejected", "scope", "session");
+        this.signalRejections = meterRegistry.counter("chat.ratelimit.rejected", "scope", "signal");
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+        String sessionId = accessor.getSessionId();
+        if (sessionId == null) {
+            return message;
+        }
+        if (StompCommand.DISCONNECT.equals(accessor.getCommand())) {
+            sessionBuckets.remove(sessionId);
+            signalBuckets.remove(sessionId);
+            return message;
+        }
+        if (!StompCommand.SEND.equals(accessor.getCommand())) {
+            return message;
+        }
+        if (matches(SIGNAL_PREFIXES, accessor.getDestination())) {
+            if (!bucket(signalBuckets, sessionId, signalRate, signalBurst).tryAcquire()) {
+                signalRejections.increment();
+                log.debug("Rate limited signals from session {}", sessionId);
+                return null;
+            }
+            return message;
+        }
+
+        if (!bucket(sessionBuckets, sessionId, sessionRate, sessionBurst).tryAcquire()) {
+            sessionRejections.increment();
+            log.debug("Rate limited session {}", sessionId);
+            return null;
+        }
+        String userId = userOf(accessor);
+        if (userId != null && !bucket(userBuckets, userId, userRate, userBurst).tryAcquire()) {
+            userRejections.increment();
+            log.debug("Rate limited user {}", userId);
+            return null;
+        }
+        return message;
+    }
+
+    private static boolean matches(List<String> prefixes, String destination) {
+        return destination != null && prefixes.stream().anyMatch(destination::startsWith);
+    }
+
+    private static String userOf(StompHeaderAccessor accessor) {
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        Object username = attributes != null ? attributes.get("username") : null;
+        return username != null ? username.toString() : null;
+    }
+
+    private TokenBucket bucket(Map<String, TokenBucket> buckets, String key, double rate, int burst) {
+        TokenBucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (inserts.incrementAndGet() % PRUNE_EVERY_INSERTS == 0) {
+            prune(userBuckets);
+            prune(sessionBuckets);
+            prune(signalBuckets);
+        }
+        return buckets.computeIfAbsent(key, k -> new TokenBucket(rate, burst));
+    }
+
+    private static void prune(Map<String, TokenBucket> buckets) {
+        if (buckets.size() > MAX_IDLE_BUCKETS) {
+            // Full buckets carry no state worth keeping, so they can be dropped and recreated later
+            buckets.values().removeIf(TokenBucket::isFull);
+        }
+    }
+
+    // GCRA form of a token bucket: the whole state is one "theoretical arrival time", updated
+    // with a CAS loop so concurrent senders never block each other.
+    static class TokenBucket {
+        private final long intervalNanos;
+        private final long toleranceNanos;
+        private final AtomicLong theoreticalArrival;
+
+        TokenBucket(double perSecond, int burst) {
+            this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / perSecond);
+            this.toleranceNanos = intervalNanos * Math.max(0, burst - 1);
+            this.theoreticalArrival = new AtomicLong(System.nanoTime());
+        }
+
+        boolean tryAcquire() {
+            while (true) {
+                long now = System.nanoTime();
+                long current = theoreticalArrival.get();
+                long start = Math.max(current, now);
+                if (start - now > toleranceNanos) {
+                    return false;
+                }
+                if (theoreticalArrival.compareAndSet(current, start + intervalNanos)) {
+                    return true;
+                }
+            }
+        }
+
+        boolean isFull() {
+            return theoreticalArrival.get() <= System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.group3.chat_api.handler;
+
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.NativeMessageHeaderAccessor;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// The broker converts a broadcast's payload once and hands every subscriber the same byte[],
+// but the stock encoder re-encodes the whole MESSAGE frame per session. Only the subscription
+// and message-id headers actually differ between sessions, so everything else (command, shared
+// headers, content-length, body, terminator) is encoded once per payload and kept as immutable
+// bytes that each session's frame is stitched from. Other frames go through the stock encoder.
+public class SharedFrameStompEncoder extends StompEncoder {
+    private static final int SLOTS = 64;
+    private static final Set<String> SESSION_HEADERS = Set.of(
+            StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER,
+            StompHeaderAccessor.STOMP_MESSAGE_ID_HEADER,
+            StompHeaderAccessor.STOMP_CONTENT_LENGTH_HEADER);
+
+    // Keyed by payload identity; a collision just overwrites the slot and costs a rebuild
+    private final AtomicReferenceArray<SharedFrame> frames = new AtomicReferenceArray<>(SLOTS);
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public byte[] encode(Map<String, Object> headers, byte[] payload) {
+        Object nativeHeaders = headers.get(NativeMessageHeaderAccessor.NATIVE_HEADERS);
+        if (StompHeaderAccessor.getCommand(headers) != StompCommand.MESSAGE || !(nativeHeaders instanceof Map)) {
+            return super.encode(headers, payload);
+        }
+
+        Map<String, List<String>> sharedHeaders = new LinkedHashMap<>();
+        ByteArrayOutputStream sessionHeaders = new ByteArrayOutputStream(64);
+        for (Map.Entry<String, List<String>> entry : ((Map<String, List<String>>) nativeHeaders).entrySet()) {
+            if (!SESSION_HEADERS.contains(entry.getKey())) {
+                sharedHeaders.put(entry.getKey(), entry.getValue());
+            } else if (!StompHeaderAccessor.STOMP_CONTENT_LENGTH_HEADER.equals(entry.getKey())) {
+                writeHeader(sessionHeaders, entry.getKey(), entry.getValue());
+            }
+        }
+
+        int slot = System.identityHashCode(payload) & (SLOTS - 1);
+        SharedFrame frame = frames.get(slot);
+        if (frame == null || frame.payload != payload || !frame.headers.equals(sharedHeaders)) {
+            frame = new SharedFrame(payload, sharedHeaders);
+            frames.set(slot, frame);
+        }
+        return frame.assemble(sessionHeaders);
+    }
+
+    private static void writeHeader(ByteArrayOutputStream out, String key, List<String> values) {
+        if (values == null) {
+            return;
+        }
+        byte[] encodedKey = escape(key).getBytes(StandardCharsets.UTF_8);
+        for (String value : values) {
+            out.writeBytes(encodedKey);
+            out.write(':');
+            out.writeBytes(escape(value).getBytes(StandardCharsets.UTF_8));
+            out.write('\n');
+        }
+    }
+
+    // STOMP 1.2 header escaping, which applies to every frame the server sends except CONNECTED
+    private static String escape(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder escaped = null;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            String replacement = switch (c) {
+                case '\\' -> "\\\\";
+                case ':' -> "\\c";
+                case '\n' -> "\\n";
+                case '\r' -> "\\r";
+                default -> null;
+            };
+            if (replacement != null && escaped == null) {
+                escaped = new StringBuilder(text.length() + 8).append(text, 0, i);
+            }
+            if (escaped != null) {
+                if (replacement != null) {
+                    escaped.append(replacement);
+                } else {
+                    escaped.append(c);
+                }
+            }
+        }
+        return escaped != null ? escaped.toString() : text;
+    }
+
+    private static final class SharedFrame {
+        private final byte[] payload;
+        private final Map<String, List<String>> headers;
+        private final byte[] head;
+        private final byte[] tail;
+
+        private SharedFrame(byte[] payload, Map<String, List<String>> headers) {
+            this.payload = payload;
+            this.headers = headers;
+
+            ByteArrayOutputStream head = new ByteArrayOutputStream(128);
+            head.writeBytes(StompCommand.MESSAGE.name().getBytes(StandardCharsets.UTF_8));
+            head.write('\n');
+            headers.forEach((key, values) -> writeHeader(head, key, values));
+            this.head = head.toByteArray();
+
+            ByteArrayOutputStream tail = new ByteArrayOutputStream(payload.length + 32);
+            tail.writeBytes((StompHeaderAccessor.STOMP_CONTENT_LENGTH_HEADER + ":" + payload.length + "\n\n")
+                    .getBytes(StandardCharsets.UTF_8));
+            tail.writeBytes(payload);
+            tail.write(0);
+            this.tail = tail.toByteArray();
+        }
+
+        private byte[] assemble(ByteArrayOutputStream sessionHeaders) {
+            int sessionLength = sessionHeaders.size();
+            byte[] frame = new byte[head.length + sessionLength + tail.length];
+            System.arraycopy(head, 0, frame, 0, head.length);
+            System.arraycopy(sessionHeaders.toByteArray(), 0, frame, head.length, sessionLength);
+            System.arraycopy(tail, 0, frame, head.length + sessionLength, tail.length);
+            return frame;
+        }
+    }
+}
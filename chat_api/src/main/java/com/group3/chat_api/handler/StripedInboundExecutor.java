@@ -0,0 +1,105 @@
+package com.group3.chat_api.handler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Executor for clientInboundChannel that keeps each conversation in order. Frames sent to a
+// conversation destination are hashed by conversationId onto one of `stripes` single-threaded
+// queues, so one conversation is handled sequentially while different conversations run in
+// parallel. Anything else (CONNECT, SUBSCRIBE, /chat/addUser) is hashed by session instead.
+// A full stripe blocks the sender for up to offer-timeout-ms, then the frame is rejected.
+@Slf4j
+public class StripedInboundExecutor extends ThreadPoolTaskExecutor {
+    private static final List<String> CONVERSATION_PREFIXES = List.of("/chat/sendMessage/", "/chat/typing/", "/chat/read/");
+
+    private final MeterRegistry meterRegistry;
+    private final int stripeCount;
+    private final int queueCapacity;
+    private final long offerTimeoutMs;
+    private final Counter rejectedCounter;
+    private ThreadPoolExecutor[] stripes;
+
+    public StripedInboundExecutor(MeterRegistry meterRegistry, int stripeCount, int queueCapacity, long offerTimeoutMs) {
+        this.meterRegistry = meterRegistry;
+        this.stripeCount = stripeCount;
+        this.queueCapacity = queueCapacity;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.rejectedCounter = meterRegistry.counter("chat.inbound.rejected");
+        setThreadNamePrefix("clientInboundChannel-");
+        // The pool inherited from ThreadPoolTaskExecutor only serves the rare untyped task
+        setCorePoolSize(1);
+        setMaxPoolSize(1);
+    }
+
+    @Override
+    protected ExecutorService initializeExecutor(ThreadFactory threadFactory, RejectedExecutionHandler rejectedExecutionHandler) {
+        stripes = new ThreadPoolExecutor[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            ThreadPoolExecutor stripe = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(queueCapacity), threadFactory);
+            // Tasks are offered straight to the queue below, so the worker must already be running
+            stripe.prestartAllCoreThreads();
+            stripes[i] = stripe;
+            Gauge.builder("chat.inbound.queue.depth", stripe, executor -> executor.getQueue().size())
+                    .tag("stripe", String.valueOf(i))
+                    .register(meterRegistry);
+        }
+        return super.initializeExecutor(threadFactory, rejectedExecutionHandler);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (stripes == null || !(task instanceof MessageHandlingRunnable handlingRunnable)) {
+            super.execute(task);
+            return;
+        }
+        ThreadPoolExecutor stripe = stripes[Math.floorMod(keyOf(handlingRunnable.getMessage()).hashCode(), stripes.length)];
+        try {
+            if (!stripe.isShutdown() && stripe.getQueue().offer(task, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        rejectedCounter.increment();
+        throw new RejectedExecutionException("Inbound stripe is full, dropping message");
+    }
+
+    @Override
+    public void shutdown() {
+        if (stripes != null) {
+            for (ThreadPoolExecutor stripe : stripes) {
+                stripe.shutdown();
+            }
+        }
+        super.shutdown();
+    }
+
+    private static String keyOf(Message<?> message) {
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (destination != null) {
+            for (String prefix : CONVERSATION_PREFIXES) {
+                if (destination.startsWith(prefix)) {
+                    return destination.substring(prefix.length());
+                }
+            }
+        }
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        return sessionId != null ? sessionId : "";
+    }
+}
@@ -2,11 +2,13 @@ package com.group3.chat_api.handler;
 
 import com.group3.chat_api.model.ChatMessage;
 import com.group3.chat_api.model.MessageType;
+import com.group3.chat_api.service.PresenceService;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.event.EventListener;
 import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.messaging.simp.broker.BrokerAvailabilityEvent;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.messaging.SessionConnectedEvent;
@@ -18,12 +20,22 @@ public class WebSocketEventListener {
     private static final Logger log = LoggerFactory.getLogger(WebSocketEventListener.class);
 
     private final SimpMessageSendingOperations messagingTemplate;
+    private final PresenceService presenceService;
 
     @EventListener
     public void handleWebSocketConnectListener(SessionConnectedEvent event) {
         log.info("Received a new web socket connection");
     }
 
+    @EventListener
+    public void handleBrokerAvailability(BrokerAvailabilityEvent event) {
+        if (event.isBrokerAvailable()) {
+            log.info("Message broker available");
+        } else {
+            log.warn("Message broker unavailable, waiting for the relay to reconnect");
+        }
+    }
+
     @EventListener
     public void handleWebSocketDisconnectListener(SessionDisconnectEvent event) {
         StompHeaderAccessor headerAccessor = StompHeaderAccessor.wrap(event.getMessage());
@@ -31,6 +43,7 @@ public class WebSocketEventListener {
 
         if (username != null) {
             log.info("user disconnected: {}", username);
+            presenceService.disconnect(username, headerAccessor.getSessionId());
 
             var chatMessage = ChatMessage.builder()
                     .type(MessageType.LEAVE)
@@ -0,0 +1,122 @@
+package com.group3.chat_api.handler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Lets clients on the native (non-SockJS) endpoint opt into CBOR by sending
+// "accept-content:application/cbor" on CONNECT. Broadcasts are still converted to JSON once;
+// for opted-in sessions the JSON is transcoded to CBOR on the way out, once per payload, and sent
+// as a binary frame. StompSubProtocolHandler only uses binary frames for octet-stream content,
+// so outbound CBOR is labelled application/octet-stream;format=cbor. Everyone else keeps JSON.
+@Slf4j
+@Component
+public class WireFormatChannelInterceptor implements ChannelInterceptor {
+    public static final MimeType CBOR = MimeType.valueOf("application/cbor");
+    public static final MimeType CBOR_FRAME = new MimeType(MimeTypeUtils.APPLICATION_OCTET_STREAM, Map.of("format", "cbor"));
+    public static final String ACCEPT_CONTENT_HEADER = "accept-content";
+    public static final String BINARY_FRAMES_ATTRIBUTE = "binaryFrames";
+    private static final int SLOTS = 64;
+
+    private final ObjectMapper jsonMapper;
+    private final CBORMapper cborMapper = new CBORMapper();
+    private final Set<String> cborSessions = ConcurrentHashMap.newKeySet();
+    private final AtomicReferenceArray<Transcoded> transcoded = new AtomicReferenceArray<>(SLOTS);
+
+    public WireFormatChannelInterceptor(ObjectMapper jsonMapper) {
+        this.jsonMapper = jsonMapper;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (sessionId == null) {
+            return message;
+        }
+        if (type == SimpMessageType.CONNECT) {
+            registerSession(StompHeaderAccessor.wrap(message), sessionId);
+        } else if (type == SimpMessageType.DISCONNECT) {
+            cborSessions.remove(sessionId);
+        } else if (type == SimpMessageType.MESSAGE && cborSessions.contains(sessionId)
+                && message.getPayload() instanceof byte[] json) {
+            return toCbor(message, json);
+        }
+        return message;
+    }
+
+    @EventListener
+    public void handleDisconnect(SessionDisconnectEvent event) {
+        cborSessions.remove(event.getSessionId());
+    }
+
+    private void registerSession(StompHeaderAccessor accessor, String sessionId) {
+        String accept = accessor.getFirstNativeHeader(ACCEPT_CONTENT_HEADER);
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        boolean binaryFrames = attributes != null && Boolean.TRUE.equals(attributes.get(BINARY_FRAMES_ATTRIBUTE));
+        if (accept == null || !binaryFrames) {
+            return;
+        }
+        for (MimeType mimeType : MimeTypeUtils.parseMimeTypes(accept)) {
+            if (CBOR.equalsTypeAndSubtype(mimeType)) {
+                cborSessions.add(sessionId);
+                return;
+            }
+        }
+    }
+
+    private Message<?> toCbor(Message<?> message, byte[] json) {
+        MessageHeaderAccessor accessor = MessageHeaderAccessor.getMutableAccessor(message);
+        MimeType contentType = accessor.getContentType();
+        if (contentType != null && !MimeTypeUtils.APPLICATION_JSON.isCompatibleWith(contentType)) {
+            return message;
+        }
+        byte[] cbor;
+        try {
+            cbor = transcode(json);
+        } catch (IOException e) {
+            log.warn("Unable to transcode message to CBOR, sending JSON: {}", e.getMessage());
+            return message;
+        }
+        accessor.setContentType(CBOR_FRAME);
+        if (accessor instanceof SimpMessageHeaderAccessor simpAccessor) {
+            simpAccessor.setNativeHeader(StompHeaderAccessor.STOMP_CONTENT_TYPE_HEADER, CBOR_FRAME.toString());
+        }
+        return MessageBuilder.createMessage(cbor, accessor.getMessageHeaders());
+    }
+
+    // Every subscriber of a broadcast shares the JSON array, so the CBOR array is shared too,
+    // which keeps SharedFrameStompEncoder's per-payload frame cache effective for CBOR sessions
+    private byte[] transcode(byte[] json) throws IOException {
+        int slot = System.identityHashCode(json) & (SLOTS - 1);
+        Transcoded cached = transcoded.get(slot);
+        if (cached != null && cached.json == json) {
+            return cached.cbor;
+        }
+        byte[] cbor = cborMapper.writeValueAsBytes(jsonMapper.readTree(json));
+        transcoded.set(slot, new Transcoded(json, cbor));
+        return cbor;
+    }
+
+    private record Transcoded(byte[] json, byte[] cbor) {
+    }
+}
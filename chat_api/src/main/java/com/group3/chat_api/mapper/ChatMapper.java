@@ -1,24 +1,74 @@
 package com.group3.chat_api.mapper;
 
+import com.group3.chat_api.dto.ChatCursor;
+import com.group3.chat_api.dto.ChatPageResponse;
 import com.group3.chat_api.dto.ChatRequest;
 import com.group3.chat_api.dto.ChatResponse;
+import com.group3.chat_api.dto.ChatSearchHit;
 import com.group3.chat_api.model.Chat;
+import com.group3.chat_api.model.ChatKeys;
+import com.group3.chat_api.model.LegacyChat;
+import com.group3.chat_api.model.OutboxEvent;
+import com.group3.chat_api.model.SequencedChat;
 
+import com.datastax.oss.driver.api.core.uuid.Uuids;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
 import java.util.UUID;
 
 @Component
 public class ChatMapper {
     public Chat toEntity(ChatRequest chatRequest) {
+        LocalDateTime sentAt = LocalDateTime.now();
         return Chat.builder()
-                .chatId(UUID.randomUUID())
+                .chatId(ChatKeys.newChatId())
                 .conversationId(UUID.fromString(
                         chatRequest.getConversationId()))
+                .bucket(ChatKeys.bucketOf(sentAt))
                 .senderId(chatRequest.getSenderId())
                 .message(chatRequest.getMessage())
-                .sentAt(LocalDateTime.now())
+                .sentAt(sentAt)
+                .build();
+    }
+
+    public Chat fromLegacy(LegacyChat legacyChat) {
+        return Chat.builder()
+                .chatId(ChatKeys.chatIdAt(legacyChat.getSentAt(), legacyChat.getChatId()))
+                .conversationId(legacyChat.getConversationId())
+                .bucket(ChatKeys.bucketOf(legacyChat.getSentAt()))
+                .senderId(legacyChat.getSenderId())
+                .message(legacyChat.getMessage())
+                .sentAt(legacyChat.getSentAt())
+                .build();
+    }
+
+    public SequencedChat toSequenced(Chat chat) {
+        return SequencedChat.builder()
+                .conversationId(chat.getConversationId())
+                .seq(chat.getSeq())
+                .chatId(chat.getChatId())
+                .bucket(chat.getBucket())
+                .senderId(chat.getSenderId())
+                .message(chat.getMessage())
+                .sentAt(chat.getSentAt())
+                .build();
+    }
+
+    public OutboxEvent toOutboxEvent(Chat chat, UUID eventId) {
+        return OutboxEvent.builder()
+                .shard(ChatKeys.outboxShardOf(chat.getConversationId()))
+                .bucket(ChatKeys.outboxBucketOf(Uuids.unixTimestamp(eventId)))
+                .eventId(eventId)
+                .conversationId(chat.getConversationId())
+                .chatId(chat.getChatId())
+                .seq(chat.getSeq())
+                .senderId(chat.getSenderId())
+                .message(chat.getMessage())
+                .sentAt(chat.getSentAt())
                 .build();
     }
 
@@ -27,6 +77,57 @@ public class ChatMapper {
                 .chatId(chat.getChatId())
                 .senderId(chat.getSenderId())
                 .message(chat.getMessage())
+                .seq(chat.getSeq())
+                .build();
+    }
+
+    public ChatResponse toResponse(SequencedChat chat) {
+        return ChatResponse.builder()
+                .chatId(chat.getChatId())
+                .senderId(chat.getSenderId())
+                .message(chat.getMessage())
+                .seq(chat.getSeq())
+                .build();
+    }
+
+    public ChatSearchHit toSearchHit(Chat chat) {
+        return ChatSearchHit.builder()
+                .conversationId(chat.getConversationId())
+                .chatId(chat.getChatId())
+                .senderId(chat.getSenderId())
+                .message(chat.getMessage())
+                .sentAt(chat.getSentAt())
+                .seq(chat.getSeq())
+                .build();
+    }
+
+    public ChatPageResponse toPageResponse(List<Chat> chats, int limit) {
+        String nextCursor = null;
+        if (chats.size() == limit) {
+            nextCursor = toCursor(chats.get(chats.size() - 1));
+        }
+        return ChatPageResponse.builder()
+                .chats(chats.stream()
+                        .map(this::toResponse)
+                        .toList())
+                .nextCursor(nextCursor)
                 .build();
     }
+
+    // Cursors are the last-seen clustering key, opaque to clients
+    public String toCursor(Chat chat) {
+        String raw = chat.getBucket() + ":" + chat.getChatId();
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public ChatCursor fromCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", 2);
+            return new ChatCursor(Integer.parseInt(parts[0]), UUID.fromString(parts[1]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid chat cursor: " + cursor, e);
+        }
+    }
 }
@@ -2,6 +2,7 @@ package com.group3.chat_api.mapper;
 
 import com.group3.chat_api.dto.ConversationManagerResponse;
 import com.group3.chat_api.model.ConversationManager;
+import com.group3.chat_api.model.ConversationMember;
 import org.springframework.stereotype.Component;
 
 import java.util.UUID;
@@ -18,4 +19,18 @@ public class ConversationManagerMapper {
     public UUID toConversationId(ConversationManager conversationManager) {
         return conversationManager.getConversationId();
     }
+
+    public ConversationMember toMember(ConversationManager conversationManager) {
+        return ConversationMember.builder()
+                .conversationId(conversationManager.getConversationId())
+                .userId(conversationManager.getUserId())
+                .build();
+    }
+
+    public ConversationManager fromMember(ConversationMember conversationMember) {
+        return ConversationManager.builder()
+                .userId(conversationMember.getUserId())
+                .conversationId(conversationMember.getConversationId())
+                .build();
+    }
 }
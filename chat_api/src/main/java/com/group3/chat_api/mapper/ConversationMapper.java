@@ -3,10 +3,12 @@ package com.group3.chat_api.mapper;
 import com.group3.chat_api.dto.ConversationRequest;
 import com.group3.chat_api.dto.ConversationResponse;
 import com.group3.chat_api.model.Conversation;
+import com.group3.chat_api.model.InboxEntry;
 
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
+import java.util.Map;
 import java.util.UUID;
 
 @Component
@@ -28,4 +30,18 @@ public class ConversationMapper {
                 .locked(conversation.getLocked())
                 .build();
     }
+
+    // Unread counts live in their own counter table and are looked up per user alongside the inbox
+    public ConversationResponse toResponse(InboxEntry inboxEntry, Map<UUID, Long> unread) {
+        return ConversationResponse.builder()
+                .conversationId(inboxEntry.getConversationId())
+                .createdAt(inboxEntry.getCreatedAt())
+                .expiresAt(inboxEntry.getExpiresAt())
+                .locked(inboxEntry.getLocked())
+                .lastActivityAt(inboxEntry.getLastActivityAt())
+                .lastMessage(inboxEntry.getLastMessage())
+                .lastSenderId(inboxEntry.getLastSenderId())
+                .unreadCount(unread.getOrDefault(inboxEntry.getConversationId(), 0L).intValue())
+                .build();
+    }
 }
@@ -1,40 +1,53 @@
 package com.group3.chat_api.model;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.cassandra.core.cql.Ordering;
 import org.springframework.data.cassandra.core.cql.PrimaryKeyType;
-import org.springframework.data.cassandra.core.mapping.PrimaryKey;
+import org.springframework.data.cassandra.core.mapping.CassandraType;
 import org.springframework.data.cassandra.core.mapping.PrimaryKeyColumn;
 import org.springframework.data.cassandra.core.mapping.Table;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
 
+// Partitioned by (conversationId, bucket) so a conversation's history lives in a handful of
+// partitions, newest message first within each one. See ChatKeys for the bucket width.
 @Slf4j
-@Table("chat")
+@Table("chat_by_conversation")
 @Data
 @Builder
 @Getter
 @Setter
+@NoArgsConstructor
+@AllArgsConstructor
 public class Chat {
+    @PrimaryKeyColumn(name = "conversationid", ordinal = 0, type = PrimaryKeyType.PARTITIONED) private UUID conversationId;
+    @PrimaryKeyColumn(name = "bucket", ordinal = 1, type = PrimaryKeyType.PARTITIONED) private Integer bucket;
+    @PrimaryKeyColumn(name = "chatid", ordinal = 2, type = PrimaryKeyType.CLUSTERED, ordering = Ordering.DESCENDING)
+    @CassandraType(type = CassandraType.Name.TIMEUUID)
     private UUID chatId;
-    @PrimaryKeyColumn(name = "conversationid", ordinal = 0, type = PrimaryKeyType.CLUSTERED) private UUID conversationId;
     private String senderId;
     private String message;
-    @PrimaryKeyColumn(name = "sentat", ordinal = 1, type = PrimaryKeyType.PARTITIONED, ordering = Ordering.DESCENDING) private LocalDateTime sentAt;
+    private LocalDateTime sentAt;
+    // Per-conversation order assigned by ChatSequenceService; null for migrated history
+    private Long seq;
 
     @Override
     public String toString() {
         return "Chat{" +
                 "chatId=" + chatId +
                 ", conversationId=" + conversationId +
+                ", bucket=" + bucket +
                 ", senderId=" + senderId +
                 ", message='" + message + '\'' +
                 ", sentAt=" + sentAt +
+                ", seq=" + seq +
                 '}';
     }
 }
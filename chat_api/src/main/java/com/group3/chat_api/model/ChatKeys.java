@@ -0,0 +1,50 @@
+package com.group3.chat_api.model;
+
+import com.datastax.oss.driver.api.core.uuid.Uuids;
+import com.group3.chat_api.service.ConversationExpiryService;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.UUID;
+
+public final class ChatKeys {
+    // Buckets are aligned to the epoch rather than to the conversation's start, so a lifetime
+    // spans ceil(lifetime / bucket) buckets plus one it can straddle into
+    public static final int BUCKET_DAYS = 7;
+    public static final int MAX_BUCKETS =
+            (int) ((ConversationExpiryService.CONVERSATION_LIFETIME.toDays() + BUCKET_DAYS - 1) / BUCKET_DAYS) + 1;
+
+    // The outbox is spread over a fixed number of shards, each split into hourly partitions, so
+    // relays can divide the work and no partition grows without bound
+    public static final int OUTBOX_SHARDS = 16;
+    public static final long OUTBOX_BUCKET_MILLIS = 3_600_000L;
+
+    private ChatKeys() {
+    }
+
+    public static int outboxShardOf(UUID conversationId) {
+        return Math.floorMod(conversationId.hashCode(), OUTBOX_SHARDS);
+    }
+
+    public static int outboxBucketOf(long epochMillis) {
+        return (int) (epochMillis / OUTBOX_BUCKET_MILLIS);
+    }
+
+    public static int bucketOf(LocalDateTime sentAt) {
+        return (int) (sentAt.toLocalDate().toEpochDay() / BUCKET_DAYS);
+    }
+
+    public static UUID newChatId() {
+        return Uuids.timeBased();
+    }
+
+    // Builds a timeuuid for an existing message. The low bits come from the old random id so
+    // re-running a migration overwrites the same rows instead of duplicating them.
+    public static UUID chatIdAt(LocalDateTime sentAt, UUID seed) {
+        long millis = sentAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        long msb = Uuids.startOf(millis).getMostSignificantBits();
+        long seedBits = seed != null ? seed.getLeastSignificantBits() : UUID.randomUUID().getLeastSignificantBits();
+        long lsb = (seedBits & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+}
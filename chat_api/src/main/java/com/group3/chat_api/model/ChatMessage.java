@@ -15,4 +15,5 @@ public class ChatMessage {
     private String conversationId;
     private String content;
     private String sender;
+    private Long seq;
 }
\ No newline at end of file
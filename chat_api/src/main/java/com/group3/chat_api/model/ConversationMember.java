@@ -0,0 +1,30 @@
+package com.group3.chat_api.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.cassandra.core.cql.PrimaryKeyType;
+import org.springframework.data.cassandra.core.mapping.PrimaryKeyColumn;
+import org.springframework.data.cassandra.core.mapping.Table;
+
+import java.util.UUID;
+
+// Reverse of ConversationManager (user_conversation) so members are looked up by conversation
+@Slf4j
+@Table("conversation_members")
+@Data
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConversationMember {
+    @PrimaryKeyColumn(name = "conversationid", ordinal = 0, type = PrimaryKeyType.PARTITIONED)
+    private UUID conversationId;
+    @PrimaryKeyColumn(name = "userid", ordinal = 1, type = PrimaryKeyType.CLUSTERED)
+    private String userId;
+}
@@ -0,0 +1,39 @@
+package com.group3.chat_api.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.cassandra.core.cql.PrimaryKeyType;
+import org.springframework.data.cassandra.core.mapping.PrimaryKeyColumn;
+import org.springframework.data.cassandra.core.mapping.Table;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// One row per conversation a user belongs to, carrying everything the conversation list shows
+// so the inbox is a single partition read. Rows are clustered by conversationId rather than
+// activity so a new message is an upsert, not a delete and re-insert under a new key.
+@Slf4j
+@Table("user_inbox")
+@Data
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class InboxEntry {
+    @PrimaryKeyColumn(name = "userid", ordinal = 0, type = PrimaryKeyType.PARTITIONED)
+    private String userId;
+    @PrimaryKeyColumn(name = "conversationid", ordinal = 1, type = PrimaryKeyType.CLUSTERED)
+    private UUID conversationId;
+    private LocalDateTime createdAt;
+    private LocalDateTime expiresAt;
+    private Boolean locked;
+    private LocalDateTime lastActivityAt;
+    private String lastMessage;
+    private String lastSenderId;
+}
@@ -3,5 +3,10 @@ package com.group3.chat_api.model;
 public enum MessageType {
     CHAT,
     JOIN,
-    LEAVE
+    LEAVE,
+    // Ephemeral: sent to /chat/typing/{conversationId}, coalesced by TypingService and never stored
+    TYPING,
+    STOP_TYPING,
+    // Sent to /chat/read/{conversationId} with the highest seq read; ReadReceiptService batches them
+    READ
 }
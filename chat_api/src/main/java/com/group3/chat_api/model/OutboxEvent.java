@@ -0,0 +1,37 @@
+package com.group3.chat_api.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.cassandra.core.cql.Ordering;
+import org.springframework.data.cassandra.core.cql.PrimaryKeyType;
+import org.springframework.data.cassandra.core.mapping.CassandraType;
+import org.springframework.data.cassandra.core.mapping.PrimaryKeyColumn;
+import org.springframework.data.cassandra.core.mapping.Table;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// A chat waiting to be published to proj2.chat. Written in the same logged batch as the chat
+// itself and read back in eventId order by ChatOutboxRelayService; rows are never deleted, they
+// expire after the outbox retention instead. eventId doubles as the AMQP message id for dedup.
+@Table("chat_outbox")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+    @PrimaryKeyColumn(name = "shard", ordinal = 0, type = PrimaryKeyType.PARTITIONED) private Integer shard;
+    @PrimaryKeyColumn(name = "bucket", ordinal = 1, type = PrimaryKeyType.PARTITIONED) private Integer bucket;
+    @PrimaryKeyColumn(name = "eventid", ordinal = 2, type = PrimaryKeyType.CLUSTERED, ordering = Ordering.ASCENDING)
+    @CassandraType(type = CassandraType.Name.TIMEUUID)
+    private UUID eventId;
+    private UUID conversationId;
+    @CassandraType(type = CassandraType.Name.TIMEUUID)
+    private UUID chatId;
+    private Long seq;
+    private String senderId;
+    private String message;
+    private LocalDateTime sentAt;
+}
@@ -0,0 +1,28 @@
+package com.group3.chat_api.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.cassandra.core.cql.PrimaryKeyType;
+import org.springframework.data.cassandra.core.mapping.CassandraType;
+import org.springframework.data.cassandra.core.mapping.PrimaryKeyColumn;
+import org.springframework.data.cassandra.core.mapping.Table;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// The last outbox event each shard's relay has had confirmed by the broker, and the time
+// (epoch millis) up to which the shard has been scanned, including empty buckets
+@Table("chat_outbox_offset")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxOffset {
+    @PrimaryKeyColumn(name = "shard", ordinal = 0, type = PrimaryKeyType.PARTITIONED) private Integer shard;
+    @CassandraType(type = CassandraType.Name.TIMEUUID)
+    private UUID eventId;
+    private Long scannedUntil;
+    private LocalDateTime updatedAt;
+}
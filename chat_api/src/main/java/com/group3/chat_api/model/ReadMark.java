@@ -0,0 +1,28 @@
+package com.group3.chat_api.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.cassandra.core.cql.PrimaryKeyType;
+import org.springframework.data.cassandra.core.mapping.PrimaryKeyColumn;
+import org.springframework.data.cassandra.core.mapping.Table;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// The highest sequence number each member has read. The flusher only ever writes a mark higher
+// than the stored one, so a late or out-of-order flush can't move it backwards.
+@Table("conversation_read_mark")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReadMark {
+    @PrimaryKeyColumn(name = "conversationid", ordinal = 0, type = PrimaryKeyType.PARTITIONED)
+    private UUID conversationId;
+    @PrimaryKeyColumn(name = "userid", ordinal = 1, type = PrimaryKeyType.CLUSTERED)
+    private String userId;
+    private Long lastReadSeq;
+    private LocalDateTime readAt;
+}
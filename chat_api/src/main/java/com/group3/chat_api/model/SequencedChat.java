@@ -0,0 +1,32 @@
+package com.group3.chat_api.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.cassandra.core.cql.Ordering;
+import org.springframework.data.cassandra.core.cql.PrimaryKeyType;
+import org.springframework.data.cassandra.core.mapping.CassandraType;
+import org.springframework.data.cassandra.core.mapping.PrimaryKeyColumn;
+import org.springframework.data.cassandra.core.mapping.Table;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Same messages as chat_by_conversation, keyed by sequence number so "everything after N" is a
+// single slice of one partition. A conversation's rows expire with it, which bounds the partition.
+@Table("chat_by_sequence")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SequencedChat {
+    @PrimaryKeyColumn(name = "conversationid", ordinal = 0, type = PrimaryKeyType.PARTITIONED) private UUID conversationId;
+    @PrimaryKeyColumn(name = "seq", ordinal = 1, type = PrimaryKeyType.CLUSTERED, ordering = Ordering.ASCENDING) private Long seq;
+    @CassandraType(type = CassandraType.Name.TIMEUUID)
+    private UUID chatId;
+    private Integer bucket;
+    private String senderId;
+    private String message;
+    private LocalDateTime sentAt;
+}
@@ -0,0 +1,29 @@
+package com.group3.chat_api.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.cassandra.core.cql.PrimaryKeyType;
+import org.springframework.data.cassandra.core.mapping.CassandraType;
+import org.springframework.data.cassandra.core.mapping.PrimaryKeyColumn;
+import org.springframework.data.cassandra.core.mapping.Table;
+
+import java.util.UUID;
+
+// Unread messages per conversation, partitioned by user so the conversation list reads every
+// count in one slice. Counter tables can't carry a TTL and deleted counters can't safely be
+// incremented again, so the sweeper zeroes stale rows instead of removing them.
+@Table("user_unread")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UnreadCounter {
+    @PrimaryKeyColumn(name = "userid", ordinal = 0, type = PrimaryKeyType.PARTITIONED)
+    private String userId;
+    @PrimaryKeyColumn(name = "conversationid", ordinal = 1, type = PrimaryKeyType.CLUSTERED)
+    private UUID conversationId;
+    @CassandraType(type = CassandraType.Name.COUNTER)
+    private Long unread;
+}
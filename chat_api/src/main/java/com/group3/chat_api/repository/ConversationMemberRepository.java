@@ -0,0 +1,15 @@
+package com.group3.chat_api.repository;
+
+import com.group3.chat_api.model.ConversationMember;
+import org.springframework.data.cassandra.core.mapping.MapId;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface ConversationMemberRepository extends CrudRepository<ConversationMember, MapId> {
+
+    List<ConversationMember> findByConversationId(UUID conversationId);
+}
@@ -0,0 +1,14 @@
+package com.group3.chat_api.repository;
+
+import com.group3.chat_api.model.InboxEntry;
+import org.springframework.data.cassandra.core.mapping.MapId;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository
+public interface InboxRepository extends CrudRepository<InboxEntry, MapId> {
+
+    InboxEntry findByUserIdAndConversationId(String userId, UUID conversationId);
+}
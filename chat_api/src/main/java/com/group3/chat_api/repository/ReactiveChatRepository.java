@@ -0,0 +1,21 @@
+package com.group3.chat_api.repository;
+
+import com.group3.chat_api.model.Chat;
+import org.springframework.data.cassandra.core.mapping.MapId;
+import org.springframework.data.cassandra.repository.ReactiveCassandraRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.util.UUID;
+
+@Repository
+public interface ReactiveChatRepository extends ReactiveCassandraRepository<Chat, MapId> {
+
+    Flux<Chat> findByConversationIdAndBucket(UUID conversationId, Integer bucket);
+
+    Flux<Chat> findByConversationIdAndBucket(UUID conversationId, Integer bucket, Limit limit);
+
+    Flux<Chat> findByConversationIdAndBucketAndChatIdLessThan(UUID conversationId, Integer bucket, UUID chatId,
+                                                              Limit limit);
+}
@@ -0,0 +1,15 @@
+package com.group3.chat_api.repository;
+
+import com.group3.chat_api.model.ConversationMember;
+import org.springframework.data.cassandra.core.mapping.MapId;
+import org.springframework.data.cassandra.repository.ReactiveCassandraRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.util.UUID;
+
+@Repository
+public interface ReactiveConversationMemberRepository extends ReactiveCassandraRepository<ConversationMember, MapId> {
+
+    Flux<ConversationMember> findByConversationId(UUID conversationId);
+}
@@ -0,0 +1,14 @@
+package com.group3.chat_api.repository;
+
+import com.group3.chat_api.model.Conversation;
+import org.springframework.data.cassandra.repository.ReactiveCassandraRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+@Repository
+public interface ReactiveConversationRepository extends ReactiveCassandraRepository<Conversation, UUID> {
+
+    Mono<Conversation> findByConversationId(UUID conversationId);
+}
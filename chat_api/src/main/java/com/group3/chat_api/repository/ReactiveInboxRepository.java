@@ -0,0 +1,13 @@
+package com.group3.chat_api.repository;
+
+import com.group3.chat_api.model.InboxEntry;
+import org.springframework.data.cassandra.core.mapping.MapId;
+import org.springframework.data.cassandra.repository.ReactiveCassandraRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+@Repository
+public interface ReactiveInboxRepository extends ReactiveCassandraRepository<InboxEntry, MapId> {
+
+    Flux<InboxEntry> findByUserId(String userId);
+}
@@ -0,0 +1,16 @@
+package com.group3.chat_api.repository;
+
+import com.group3.chat_api.model.SequencedChat;
+import org.springframework.data.cassandra.core.mapping.MapId;
+import org.springframework.data.cassandra.repository.ReactiveCassandraRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.util.UUID;
+
+@Repository
+public interface ReactiveSequencedChatRepository extends ReactiveCassandraRepository<SequencedChat, MapId> {
+
+    Flux<SequencedChat> findByConversationIdAndSeqGreaterThan(UUID conversationId, Long seq, Limit limit);
+}
@@ -0,0 +1,13 @@
+package com.group3.chat_api.repository;
+
+import com.group3.chat_api.model.UnreadCounter;
+import org.springframework.data.cassandra.core.mapping.MapId;
+import org.springframework.data.cassandra.repository.ReactiveCassandraRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+@Repository
+public interface ReactiveUnreadCounterRepository extends ReactiveCassandraRepository<UnreadCounter, MapId> {
+
+    Flux<UnreadCounter> findByUserId(String userId);
+}
@@ -0,0 +1,156 @@
+package com.group3.chat_api.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.group3.chat_api.model.Chat;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// Keeps the newest chat.cache.recent-size messages of each conversation in a Redis list,
+// newest first. The list is only trusted once the "loaded" marker is set, which happens when
+// a Cassandra read has back-filled everything older than what the write-behind flusher pushed.
+@Slf4j
+@Service
+public class ChatCacheService {
+    private static final String KEY_PREFIX = "chat:recent:";
+    private static final Duration DEFAULT_TTL = Duration.ofDays(30);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final ConversationExpiryService conversationExpiryService;
+    private final int capacity;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public ChatCacheService(StringRedisTemplate redisTemplate,
+                            ObjectMapper objectMapper,
+                            ConversationExpiryService conversationExpiryService,
+                            MeterRegistry meterRegistry,
+                            @Value("${chat.cache.recent-size:50}") int capacity) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.conversationExpiryService = conversationExpiryService;
+        this.capacity = capacity;
+        this.hitCounter = meterRegistry.counter("chat.cache.hits");
+        this.missCounter = meterRegistry.counter("chat.cache.misses");
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // Pushes a partition of chats, oldest first, so the newest ends up at the head. Called by the
+    // write-behind flusher once the chats are stored, which keeps Redis off the STOMP threads.
+    public void append(UUID conversationId, List<Chat> chats) {
+        String key = listKey(conversationId);
+        try {
+            List<String> json = new ArrayList<>(chats.size());
+            for (Chat chat : chats) {
+                json.add(objectMapper.writeValueAsString(chat));
+            }
+            Long size = redisTemplate.opsForList().leftPushAll(key, json);
+            redisTemplate.opsForList().trim(key, 0, capacity - 1);
+            if (size != null && size == json.size()) {
+                // This push created the list, so it needs the conversation's TTL
+                expire(conversationId, conversationExpiryService.expiresAt(conversationId));
+            }
+        } catch (Exception e) {
+            log.warn("Unable to cache {} chats for {}: {}", chats.size(), conversationId, e.getMessage());
+        }
+    }
+
+    // Returns the newest `limit` chats, or null when the cache can't answer and Cassandra must.
+    // A limit of 0 asks for the whole history, which is only known when it is shorter than the list cap.
+    public List<Chat> getNewest(UUID conversationId, int limit) {
+        try {
+            if (!Boolean.TRUE.equals(redisTemplate.hasKey(loadedKey(conversationId)))) {
+                missCounter.increment();
+                return null;
+            }
+            List<String> cached = redisTemplate.opsForList().range(listKey(conversationId), 0, capacity - 1);
+            int size = cached == null ? 0 : cached.size();
+            boolean complete = size < capacity;
+            if (limit <= 0 ? !complete : limit > capacity) {
+                missCounter.increment();
+                return null;
+            }
+            hitCounter.increment();
+            List<Chat> chats = new ArrayList<>(size);
+            for (String json : cached.subList(0, limit <= 0 ? size : Math.min(limit, size))) {
+                chats.add(objectMapper.readValue(json, Chat.class));
+            }
+            return chats;
+        } catch (Exception e) {
+            log.warn("Unable to read chat cache for {}: {}", conversationId, e.getMessage());
+            return null;
+        }
+    }
+
+    // Back-fills the list with the newest chats read from Cassandra. Anything newer than the
+    // oldest cached entry is already there via append(), so only older chats are added at the tail.
+    public void populate(UUID conversationId, List<Chat> newestFirst, LocalDateTime expiresAt) {
+        String key = listKey(conversationId);
+        try {
+            String oldestJson = redisTemplate.opsForList().index(key, -1);
+            long oldestCached = oldestJson == null ? Long.MAX_VALUE
+                    : objectMapper.readValue(oldestJson, Chat.class).getChatId().timestamp();
+
+            List<String> older = new ArrayList<>();
+            for (Chat chat : newestFirst.subList(0, Math.min(capacity, newestFirst.size()))) {
+                if (chat.getChatId().timestamp() < oldestCached) {
+                    older.add(objectMapper.writeValueAsString(chat));
+                }
+            }
+            if (!older.isEmpty()) {
+                redisTemplate.opsForList().rightPushAll(key, older);
+                redisTemplate.opsForList().trim(key, 0, capacity - 1);
+            }
+            redisTemplate.opsForValue().set(loadedKey(conversationId), "1");
+            expire(conversationId, expiresAt);
+        } catch (JsonProcessingException e) {
+            log.warn("Unable to serialize chats for {}: {}", conversationId, e.getMessage());
+        } catch (Exception e) {
+            log.warn("Unable to populate chat cache for {}: {}", conversationId, e.getMessage());
+        }
+    }
+
+    public void evict(UUID conversationId) {
+        try {
+            redisTemplate.delete(List.of(listKey(conversationId), loadedKey(conversationId)));
+        } catch (Exception e) {
+            log.warn("Unable to evict chat cache for {}: {}", conversationId, e.getMessage());
+        }
+    }
+
+    private void expire(UUID conversationId, LocalDateTime expiresAt) {
+        if (expiresAt == null) {
+            redisTemplate.expire(listKey(conversationId), DEFAULT_TTL);
+            redisTemplate.expire(loadedKey(conversationId), DEFAULT_TTL);
+            return;
+        }
+        Instant at = expiresAt.atZone(ZoneId.systemDefault()).toInstant();
+        redisTemplate.expireAt(listKey(conversationId), at);
+        redisTemplate.expireAt(loadedKey(conversationId), at);
+    }
+
+    private static String listKey(UUID conversationId) {
+        return KEY_PREFIX + conversationId;
+    }
+
+    private static String loadedKey(UUID conversationId) {
+        return KEY_PREFIX + conversationId + ":loaded";
+    }
+}
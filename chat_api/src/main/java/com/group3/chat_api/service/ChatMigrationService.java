@@ -0,0 +1,68 @@
+package com.group3.chat_api.service;
+
+import com.group3.chat_api.mapper.ChatMapper;
+import com.group3.chat_api.model.Chat;
+import com.group3.chat_api.model.LegacyChat;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.cassandra.core.CassandraOperations;
+import org.springframework.data.cassandra.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Copies rows from the old sentAt-keyed "chat" table into chat_by_conversation.
+// Enable with chat.migration.enabled=true; safe to re-run since migrated ids are deterministic.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "chat.migration.enabled", havingValue = "true")
+public class ChatMigrationService {
+    private static final int CHUNK_SIZE = 500;
+
+    private final CassandraOperations cassandraOperations;
+    private final ConversationExpiryService conversationExpiryService;
+    private final ChatMapper chatMapper;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        log.info("Starting chat migration to chat_by_conversation");
+        long migrated = 0;
+        List<Chat> chunk = new ArrayList<>(CHUNK_SIZE);
+
+        // The driver pages the legacy table lazily, so only one chunk is held at a time
+        try (Stream<LegacyChat> legacyChats = cassandraOperations.stream(Query.empty(), LegacyChat.class)) {
+            for (LegacyChat legacyChat : (Iterable<LegacyChat>) legacyChats::iterator) {
+                if (legacyChat.getConversationId() == null || legacyChat.getSentAt() == null) {
+                    continue;
+                }
+                chunk.add(chatMapper.fromLegacy(legacyChat));
+                if (chunk.size() == CHUNK_SIZE) {
+                    write(chunk);
+                    migrated += chunk.size();
+                    chunk.clear();
+                    log.info("Migrated {} chats", migrated);
+                }
+            }
+            write(chunk);
+            migrated += chunk.size();
+        } catch (Exception e) {
+            log.error("Chat migration stopped after {} chats: ", migrated, e);
+            return;
+        }
+        log.info("Chat migration finished, {} chats migrated", migrated);
+    }
+
+    // Migrated chats get the same TTL as new ones, ending when their conversation expires
+    private void write(List<Chat> chunk) {
+        for (Chat chat : chunk) {
+            cassandraOperations.insert(chat, conversationExpiryService.insertOptions(chat.getConversationId()));
+        }
+    }
+}
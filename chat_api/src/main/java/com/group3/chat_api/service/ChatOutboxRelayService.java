@@ -0,0 +1,215 @@
+package com.group3.chat_api.service;
+
+import com.datastax.oss.driver.api.core.uuid.Uuids;
+import com.group3.chat_api.handler.RabbitMQProducer;
+import com.group3.chat_api.model.ChatKeys;
+import com.group3.chat_api.model.OutboxEvent;
+import com.group3.chat_api.model.OutboxOffset;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.cassandra.core.CassandraOperations;
+import org.springframework.data.cassandra.core.query.Criteria;
+import org.springframework.data.cassandra.core.query.Query;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Drains chat_outbox to proj2.chat. Each outbox shard is relayed by whichever node holds its
+// Redis lease, reading events past the shard's checkpoint in eventId order and publishing them
+// in confirmed batches. The checkpoint only advances after the broker confirms, so a failed
+// batch is retried on the next poll and delivery is at least once; consumers dedup on the
+// message id. Events younger than settle-ms are left for the next poll so a slightly late
+// write from another node isn't skipped past. Alongside the checkpoint each shard keeps a
+// scanned-until watermark that moves past settled buckets even when they were empty, so an idle
+// shard polls only its current bucket instead of every bucket since its last event. Neither
+// reaches further back than the outbox retention.
+@Slf4j
+@Service
+public class ChatOutboxRelayService {
+    private static final String LEASE_PREFIX = "chat:outbox:lease:";
+    // Ownership check and renewal/release in one step, so a lease that expired and was taken by
+    // another node between a GET and the follow-up command is never extended or deleted
+    private static final RedisScript<Long> RENEW_LEASE = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) "
+                    + "else return 0 end", Long.class);
+    private static final RedisScript<Long> RELEASE_LEASE = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) "
+                    + "else return 0 end", Long.class);
+
+    private final CassandraOperations cassandraOperations;
+    private final StringRedisTemplate redisTemplate;
+    private final RabbitMQProducer rabbitMQProducer;
+    private final long pollMs;
+    private final int batchSize;
+    private final long settleMs;
+    private final Duration lease;
+    private final Duration retention;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Set<Integer> heldShards = new HashSet<>();
+    private final Map<Integer, UUID> checkpoints = new HashMap<>();
+    private final Map<Integer, Long> scannedUntil = new HashMap<>();
+    private final Map<Integer, Long> persistedScannedUntil = new HashMap<>();
+    private final Counter publishedCounter;
+    private final Counter failedCounter;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "chat-outbox-relay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ChatOutboxRelayService(CassandraOperations cassandraOperations,
+                                  StringRedisTemplate redisTemplate,
+                                  RabbitMQProducer rabbitMQProducer,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${chat.outbox.poll-ms:200}") long pollMs,
+                                  @Value("${chat.outbox.batch-size:100}") int batchSize,
+                                  @Value("${chat.outbox.settle-ms:2000}") long settleMs,
+                                  @Value("${chat.outbox.lease-ms:10000}") long leaseMs,
+                                  @Value("${chat.outbox.retention-hours:24}") long retentionHours) {
+        this.cassandraOperations = cassandraOperations;
+        this.redisTemplate = redisTemplate;
+        this.rabbitMQProducer = rabbitMQProducer;
+        this.pollMs = pollMs;
+        this.batchSize = batchSize;
+        this.settleMs = settleMs;
+        this.lease = Duration.ofMillis(leaseMs);
+        this.retention = Duration.ofHours(retentionHours);
+        this.publishedCounter = meterRegistry.counter("chat.outbox.published");
+        this.failedCounter = meterRegistry.counter("chat.outbox.failed");
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::relay, pollMs, pollMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+        // Hand the shards straight to another node instead of making it wait out the lease
+        for (Integer shard : heldShards) {
+            try {
+                redisTemplate.execute(RELEASE_LEASE, List.of(LEASE_PREFIX + shard), nodeId);
+            } catch (Exception e) {
+                log.debug("Unable to release outbox lease {}: {}", shard, e.getMessage());
+            }
+        }
+    }
+
+    private void relay() {
+        for (int shard = 0; shard < ChatKeys.OUTBOX_SHARDS; shard++) {
+            try {
+                if (holdLease(shard)) {
+                    relayShard(shard);
+                }
+            } catch (Exception e) {
+                log.error("Outbox relay failed for shard {}: ", shard, e);
+            }
+        }
+    }
+
+    private boolean holdLease(int shard) {
+        String key = LEASE_PREFIX + shard;
+        boolean held = Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, nodeId, lease))
+                || Long.valueOf(1).equals(redisTemplate.execute(RENEW_LEASE, List.of(key), nodeId,
+                        String.valueOf(lease.toMillis())));
+        if (!held) {
+            heldShards.remove(shard);
+            return false;
+        }
+        if (heldShards.add(shard)) {
+            // Another node may have advanced the shard while we didn't hold it
+            OutboxOffset offset = cassandraOperations.selectOne(
+                    Query.query(Criteria.where("shard").is(shard)), OutboxOffset.class);
+            checkpoints.put(shard, offset != null ? offset.getEventId() : null);
+            long scanned = offset != null && offset.getScannedUntil() != null ? offset.getScannedUntil() : 0L;
+            scannedUntil.put(shard, scanned);
+            persistedScannedUntil.put(shard, scanned);
+        }
+        return true;
+    }
+
+    private void relayShard(int shard) {
+        long now = System.currentTimeMillis();
+        long settledUntil = now - settleMs;
+        // Everything up to the watermark has been relayed, and anything older than the
+        // retention has expired, so the scan starts at whichever of those is latest
+        long watermark = Math.max(scannedUntil.getOrDefault(shard, 0L), now - retention.toMillis());
+        UUID cursor = checkpoints.get(shard);
+        if (cursor == null || Uuids.unixTimestamp(cursor) < watermark) {
+            cursor = Uuids.endOf(watermark);
+        }
+
+        for (int bucket = ChatKeys.outboxBucketOf(Uuids.unixTimestamp(cursor));
+             bucket <= ChatKeys.outboxBucketOf(settledUntil); bucket++) {
+            while (true) {
+                List<OutboxEvent> events = settled(cassandraOperations.select(Query.query(
+                        Criteria.where("shard").is(shard),
+                        Criteria.where("bucket").is(bucket),
+                        Criteria.where("eventid").gt(cursor)).limit(batchSize), OutboxEvent.class), settledUntil);
+                if (events.isEmpty()) {
+                    break;
+                }
+                if (!rabbitMQProducer.publishBatch(events)) {
+                    failedCounter.increment(events.size());
+                    return;
+                }
+                publishedCounter.increment(events.size());
+                cursor = events.get(events.size() - 1).getEventId();
+                checkpoints.put(shard, cursor);
+                saveOffset(shard);
+                if (events.size() < batchSize) {
+                    break;
+                }
+            }
+        }
+
+        scannedUntil.put(shard, settledUntil);
+        // The watermark only needs to survive a lease handover roughly, so it is written once per
+        // bucket rather than on every poll; a new holder rescans at most one bucket
+        if (ChatKeys.outboxBucketOf(settledUntil) != ChatKeys.outboxBucketOf(persistedScannedUntil.getOrDefault(shard, 0L))) {
+            saveOffset(shard);
+        }
+    }
+
+    private void saveOffset(int shard) {
+        long scanned = scannedUntil.getOrDefault(shard, 0L);
+        cassandraOperations.insert(OutboxOffset.builder()
+                .shard(shard)
+                .eventId(checkpoints.get(shard))
+                .scannedUntil(scanned)
+                .updatedAt(LocalDateTime.now())
+                .build());
+        persistedScannedUntil.put(shard, scanned);
+    }
+
+    private static List<OutboxEvent> settled(List<OutboxEvent> events, long settledUntil) {
+        List<OutboxEvent> settled = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            if (Uuids.unixTimestamp(event.getEventId()) > settledUntil) {
+                break;
+            }
+            settled.add(event);
+        }
+        return settled;
+    }
+}
@@ -0,0 +1,304 @@
+package com.group3.chat_api.service;
+
+import com.group3.chat_api.model.Chat;
+import com.group3.chat_api.model.ConversationManager;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.cassandra.core.CassandraOperations;
+import org.springframework.data.cassandra.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// In-memory inverted index over chat text, one posting-list index per user so a search only
+// ever reads the caller's own shard. Flushed chats are handed over by the write-behind flusher
+// and indexed on a separate thread, so indexing never delays persistence. Each user keeps at
+// most max-docs-per-user messages, dropping the oldest, and nothing older than a conversation's
+// lifetime is returned. The index starts empty on boot unless chat.search.backfill.enabled=true.
+@Slf4j
+@Service
+public class ChatSearchService {
+    private static final Pattern TOKEN_SPLIT = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int MIN_TOKEN_LENGTH = 2;
+
+    private final ConversationManagerService conversationManagerService;
+    private final CassandraOperations cassandraOperations;
+    private final int maxDocsPerUser;
+    private final boolean backfillEnabled;
+    private final Shard[] shards;
+    private final ThreadPoolExecutor indexer;
+    private final Counter indexedCounter;
+    private final Counter droppedCounter;
+
+    public ChatSearchService(ConversationManagerService conversationManagerService,
+                             CassandraOperations cassandraOperations,
+                             MeterRegistry meterRegistry,
+                             @Value("${chat.search.shards:32}") int shardCount,
+                             @Value("${chat.search.max-docs-per-user:20000}") int maxDocsPerUser,
+                             @Value("${chat.search.queue-capacity:10000}") int queueCapacity,
+                             @Value("${chat.search.backfill.enabled:false}") boolean backfillEnabled) {
+        this.conversationManagerService = conversationManagerService;
+        this.cassandraOperations = cassandraOperations;
+        this.maxDocsPerUser = maxDocsPerUser;
+        this.backfillEnabled = backfillEnabled;
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard();
+        }
+        this.indexer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "chat-search-indexer");
+                    thread.setDaemon(true);
+                    return thread;
+                }, (task, executor) -> dropped(task));
+        this.indexedCounter = meterRegistry.counter("chat.search.indexed");
+        this.droppedCounter = meterRegistry.counter("chat.search.dropped");
+        Gauge.builder("chat.search.queue.size", indexer, executor -> executor.getQueue().size())
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        indexer.shutdownNow();
+    }
+
+    // Called by the write-behind flusher once a batch is stored. A full queue drops the batch from
+    // the index rather than pushing back on persistence; those chats just aren't searchable.
+    public void index(UUID conversationId, List<Chat> chats) {
+        indexer.execute(new IndexTask(conversationId, List.copyOf(chats)));
+    }
+
+    // The executor's rejection handler, so a batch is counted however the queue came to be full,
+    // including batches offered after shutdown
+    private void dropped(Runnable task) {
+        if (task instanceof IndexTask indexTask) {
+            droppedCounter.increment(indexTask.chats.size());
+        }
+    }
+
+    // Newest matches first. Every query term must appear in the message; conversationIds is the
+    // caller's current set, so chats from conversations they have left are never returned.
+    public List<Chat> search(String userId, Set<UUID> conversationIds, String query, int limit) {
+        List<String> terms = new ArrayList<>(tokenize(query));
+        if (terms.isEmpty() || conversationIds.isEmpty()) {
+            return List.of();
+        }
+        LocalDateTime oldest = LocalDateTime.now().minus(ConversationExpiryService.CONVERSATION_LIFETIME);
+        Shard shard = shardOf(userId);
+        shard.lock.readLock().lock();
+        try {
+            UserIndex index = shard.users.get(userId);
+            return index != null ? index.search(terms, conversationIds, oldest, limit) : List.of();
+        } finally {
+            shard.lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        if (!backfillEnabled) {
+            return;
+        }
+        indexer.execute(this::backfillNow);
+    }
+
+    private void backfillNow() {
+        log.info("Backfilling chat search index");
+        LocalDateTime oldest = LocalDateTime.now().minus(ConversationExpiryService.CONVERSATION_LIFETIME);
+        Map<UUID, List<String>> members = new HashMap<>();
+        long indexed = 0;
+        try (Stream<Chat> chats = cassandraOperations.stream(Query.empty(), Chat.class)) {
+            for (Chat chat : (Iterable<Chat>) chats::iterator) {
+                if (chat.getSentAt() == null || chat.getSentAt().isBefore(oldest)) {
+                    continue;
+                }
+                List<String> users = members.computeIfAbsent(chat.getConversationId(), id ->
+                        conversationManagerService.getConversationById(id).stream()
+                                .map(ConversationManager::getUserId)
+                                .toList());
+                indexNow(users, List.of(chat));
+                indexed++;
+            }
+        } catch (Exception e) {
+            log.error("Chat search backfill stopped after {} chats: ", indexed, e);
+        }
+        // The table streams in token order, not time order, so each index is rebuilt oldest first
+        for (Shard shard : shards) {
+            shard.lock.writeLock().lock();
+            try {
+                shard.users.values().forEach(index -> index.retainNewest(maxDocsPerUser));
+            } finally {
+                shard.lock.writeLock().unlock();
+            }
+        }
+        log.info("Chat search backfill finished, {} chats indexed", indexed);
+    }
+
+    private void indexNow(List<String> members, List<Chat> chats) {
+        for (String userId : members) {
+            Shard shard = shardOf(userId);
+            shard.lock.writeLock().lock();
+            try {
+                UserIndex index = shard.users.computeIfAbsent(userId, k -> new UserIndex());
+                for (Chat chat : chats) {
+                    index.add(chat);
+                }
+                if (index.docs.size() > maxDocsPerUser) {
+                    index.retainNewest(maxDocsPerUser * 3 / 4);
+                }
+            } finally {
+                shard.lock.writeLock().unlock();
+            }
+        }
+        indexedCounter.increment(chats.size());
+    }
+
+    private Shard shardOf(String userId) {
+        return shards[Math.floorMod(userId.hashCode(), shards.length)];
+    }
+
+    static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : TOKEN_SPLIT.split(text.toLowerCase(Locale.ROOT))) {
+            if (token.length() >= MIN_TOKEN_LENGTH) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private final class IndexTask implements Runnable {
+        private final UUID conversationId;
+        private final List<Chat> chats;
+
+        private IndexTask(UUID conversationId, List<Chat> chats) {
+            this.conversationId = conversationId;
+            this.chats = chats;
+        }
+
+        @Override
+        public void run() {
+            try {
+                List<String> members = conversationManagerService.getConversationById(conversationId)
+                        .stream()
+                        .map(ConversationManager::getUserId)
+                        .toList();
+                indexNow(members, chats);
+            } catch (Exception e) {
+                droppedCounter.increment(chats.size());
+                log.warn("Unable to index chats for conversation {}: {}", conversationId, e.getMessage());
+            }
+        }
+    }
+
+    private static final class Shard {
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Map<String, UserIndex> users = new HashMap<>();
+    }
+
+    // Doc ids are positions in docs, assigned in arrival order, so every posting list is sorted
+    // ascending and walking one backwards visits the newest matches first
+    private static final class UserIndex {
+        private final List<Chat> docs = new ArrayList<>();
+        private final Set<UUID> chatIds = new HashSet<>();
+        private final Map<String, Postings> postings = new HashMap<>();
+
+        private void add(Chat chat) {
+            if (chat.getChatId() == null || !chatIds.add(chat.getChatId())) {
+                return;
+            }
+            int docId = docs.size();
+            docs.add(chat);
+            for (String token : tokenize(chat.getMessage())) {
+                postings.computeIfAbsent(token, k -> new Postings()).add(docId);
+            }
+        }
+
+        private void retainNewest(int keep) {
+            List<Chat> newest = new ArrayList<>(docs);
+            newest.sort(Comparator.comparingLong(chat -> chat.getChatId().timestamp()));
+            newest = newest.subList(Math.max(0, newest.size() - keep), newest.size());
+            docs.clear();
+            chatIds.clear();
+            postings.clear();
+            newest.forEach(this::add);
+        }
+
+        private List<Chat> search(List<String> terms, Set<UUID> conversationIds, LocalDateTime oldest, int limit) {
+            List<Postings> lists = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                Postings list = postings.get(term);
+                if (list == null) {
+                    return List.of();
+                }
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(list -> list.size));
+
+            Postings rarest = lists.get(0);
+            List<Chat> hits = new ArrayList<>(limit);
+            for (int i = rarest.size - 1; i >= 0 && hits.size() < limit; i--) {
+                int docId = rarest.ids[i];
+                if (!containsInAll(lists, docId)) {
+                    continue;
+                }
+                Chat chat = docs.get(docId);
+                if (conversationIds.contains(chat.getConversationId())
+                        && (chat.getSentAt() == null || !chat.getSentAt().isBefore(oldest))) {
+                    hits.add(chat);
+                }
+            }
+            return hits;
+        }
+
+        private static boolean containsInAll(List<Postings> lists, int docId) {
+            for (int i = 1; i < lists.size(); i++) {
+                Postings list = lists.get(i);
+                if (Arrays.binarySearch(list.ids, 0, list.size, docId) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class Postings {
+        private int[] ids = new int[4];
+        private int size;
+
+        private void add(int docId) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = docId;
+        }
+    }
+}
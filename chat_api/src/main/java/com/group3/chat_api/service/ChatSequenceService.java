@@ -0,0 +1,82 @@
+package com.group3.chat_api.service;
+
+import com.group3.chat_api.model.SequencedChat;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.cassandra.core.CassandraOperations;
+import org.springframework.data.cassandra.core.query.Criteria;
+import org.springframework.data.cassandra.core.query.Query;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.UUID;
+
+// Hands out a strictly increasing sequence number per conversation from a Redis counter, so
+// every node agrees on message order. A counter that has been lost (eviction, flush) is re-seeded
+// from the highest sequence already stored in chat_by_sequence before it is used again. The seed
+// is read first and then written with SET NX and incremented in one script, so nodes racing to
+// re-seed the same counter all increment the single seed that won.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ChatSequenceService {
+    private static final String KEY_PREFIX = "chat:seq:";
+    // Increments only an existing counter; nil tells the caller to seed it
+    private static final RedisScript<Long> INCR_EXISTING = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 1 then return redis.call('incr', KEYS[1]) end "
+                    + "return false", Long.class);
+    // ARGV[1] = seed, ARGV[2] = ttl in ms
+    private static final RedisScript<Long> SEED_AND_INCR = new DefaultRedisScript<>(
+            "redis.call('set', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) "
+                    + "return redis.call('incr', KEYS[1])", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final CassandraOperations cassandraOperations;
+    private final ConversationExpiryService conversationExpiryService;
+
+    // Null when Redis is unavailable; the message is still stored, it just can't be resumed by sequence
+    public Long next(UUID conversationId) {
+        String key = KEY_PREFIX + conversationId;
+        try {
+            List<String> keys = List.of(key);
+            Long seq = redisTemplate.execute(INCR_EXISTING, keys);
+            if (seq == null) {
+                long stored = lastStored(conversationId);
+                long ttl = conversationExpiryService.ttlUntil(
+                        conversationExpiryService.expiresAt(conversationId)).toMillis();
+                seq = redisTemplate.execute(SEED_AND_INCR, keys, String.valueOf(stored), String.valueOf(ttl));
+            }
+            return seq;
+        } catch (Exception e) {
+            log.warn("Unable to assign sequence for conversation {}: {}", conversationId, e.getMessage());
+            return null;
+        }
+    }
+
+    // Highest sequence handed out so far, or the highest stored one when the counter is gone
+    public long current(UUID conversationId) {
+        try {
+            String value = redisTemplate.opsForValue().get(KEY_PREFIX + conversationId);
+            if (value != null) {
+                return Long.parseLong(value);
+            }
+        } catch (Exception e) {
+            log.warn("Unable to read sequence for conversation {}: {}", conversationId, e.getMessage());
+        }
+        return lastStored(conversationId);
+    }
+
+    private long lastStored(UUID conversationId) {
+        SequencedChat last = cassandraOperations.selectOne(
+                Query.query(Criteria.where("conversationid").is(conversationId))
+                        .sort(Sort.by(Sort.Direction.DESC, "seq"))
+                        .limit(1),
+                SequencedChat.class);
+        return last != null && last.getSeq() != null ? last.getSeq() : 0;
+    }
+}
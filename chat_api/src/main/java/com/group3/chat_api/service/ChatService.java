@@ -1,28 +1,136 @@
 package com.group3.chat_api.service;
 
+import com.group3.chat_api.dto.ChatCursor;
 import com.group3.chat_api.model.Chat;
-import com.group3.chat_api.model.ChatMessage;
-import com.group3.chat_api.repository.ChatRepository;
+import com.group3.chat_api.model.ChatKeys;
+import com.group3.chat_api.model.Conversation;
+import com.group3.chat_api.model.SequencedChat;
+import com.group3.chat_api.repository.ReactiveChatRepository;
+import com.group3.chat_api.repository.ReactiveConversationRepository;
+import com.group3.chat_api.repository.ReactiveSequencedChatRepository;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.Callable;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ChatService {
 
-    private final ChatRepository chatRepository;
+    private final ReactiveChatRepository reactiveChatRepository;
+    private final ReactiveConversationRepository reactiveConversationRepository;
+    private final ReactiveSequencedChatRepository reactiveSequencedChatRepository;
+    private final ChatSequenceService chatSequenceService;
+    private final ChatWriteBehindService chatWriteBehindService;
+    private final ChatCacheService chatCacheService;
 
-    public Chat storeChat(Chat chat) {
-       return chatRepository.save(chat);
+    // Stamps the conversation sequence, then hands the insert to the write-behind queue so callers
+    // don't wait on Cassandra; the flusher adds it to the recent-message cache once it is stored
+    public Chat queueChat(Chat chat) {
+        chat.setSeq(chatSequenceService.next(chat.getConversationId()));
+        chatWriteBehindService.enqueue(chat);
+        return chat;
     }
 
-    public List<Chat> getChats(UUID conversationId) {
-        return chatRepository.findByConversationId(conversationId);
+    public Mono<List<Chat>> getChats(UUID conversationId) {
+        return blocking(() -> chatCacheService.getNewest(conversationId, 0))
+                .switchIfEmpty(Mono.defer(() -> findConversation(conversationId).flatMap(conversation -> {
+                    int newest = ChatKeys.bucketOf(LocalDateTime.now());
+                    int oldest = oldestBucket(conversation.orElse(null), newest);
+
+                    // Each bucket is its own partition, so they're read concurrently and
+                    // reassembled newest first
+                    return Flux.range(0, newest - oldest + 1)
+                            .flatMapSequential(i -> reactiveChatRepository.findByConversationIdAndBucket(
+                                    conversationId, newest - i))
+                            .collectList()
+                            .flatMap(chats -> blocking(() -> {
+                                chatCacheService.populate(conversationId, chats, expiresAt(conversation.orElse(null)));
+                                return chats;
+                            }));
+                })));
+    }
+
+    // Reads only as many rows as the page needs, starting just past the cursor's clustering key
+    public Mono<List<Chat>> getChatsBefore(UUID conversationId, ChatCursor before, int limit) {
+        if (before == null) {
+            return getNewestChats(conversationId, limit);
+        }
+        return findConversation(conversationId)
+                .flatMap(conversation -> readChats(conversationId, before, limit,
+                        oldestBucket(conversation.orElse(null), before.getBucket())));
+    }
+
+    // The first page is what nearly every chat open asks for, so it is served from the cache
+    // when possible. On a miss a full cache's worth is read so the cache can be populated.
+    private Mono<List<Chat>> getNewestChats(UUID conversationId, int limit) {
+        return blocking(() -> chatCacheService.getNewest(conversationId, limit))
+                .switchIfEmpty(Mono.defer(() -> findConversation(conversationId).flatMap(conversation -> {
+                    int oldest = oldestBucket(conversation.orElse(null), ChatKeys.bucketOf(LocalDateTime.now()));
+                    if (limit > chatCacheService.getCapacity()) {
+                        return readChats(conversationId, null, limit, oldest);
+                    }
+
+                    return readChats(conversationId, null, chatCacheService.getCapacity(), oldest)
+                            .flatMap(chats -> blocking(() -> {
+                                chatCacheService.populate(conversationId, chats, expiresAt(conversation.orElse(null)));
+                                return chats.size() > limit ? new ArrayList<>(chats.subList(0, limit)) : chats;
+                            }));
+                })));
+    }
+
+    // Buckets are visited one at a time and the walk stops as soon as the page is full,
+    // so older partitions are only queried when the newer ones run short
+    private Mono<List<Chat>> readChats(UUID conversationId, ChatCursor before, int limit, int oldest) {
+        int newest = before != null ? before.getBucket() : ChatKeys.bucketOf(LocalDateTime.now());
+
+        return Flux.range(0, Math.max(0, newest - oldest + 1))
+                .map(i -> newest - i)
+                .concatMap(bucket -> before != null && bucket == before.getBucket()
+                        ? reactiveChatRepository.findByConversationIdAndBucketAndChatIdLessThan(
+                                conversationId, bucket, before.getChatId(), Limit.of(limit))
+                        : reactiveChatRepository.findByConversationIdAndBucket(conversationId, bucket, Limit.of(limit)))
+                .take(limit)
+                .collectList();
+    }
+
+    // Everything a reconnecting client missed, oldest first, as one slice of chat_by_sequence
+    public Flux<SequencedChat> getChatsAfter(UUID conversationId, long afterSeq, int limit) {
+        return reactiveSequencedChatRepository.findByConversationIdAndSeqGreaterThan(
+                conversationId, afterSeq, Limit.of(limit));
+    }
+
+    private Mono<Optional<Conversation>> findConversation(UUID conversationId) {
+        return reactiveConversationRepository.findByConversationId(conversationId)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty());
+    }
+
+    // Redis calls are still blocking, so they're moved off the Cassandra driver's event loop
+    private static <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private int oldestBucket(Conversation conversation, int newest) {
+        if (conversation == null || conversation.getCreatedAt() == null) {
+            return newest - ChatKeys.MAX_BUCKETS + 1;
+        }
+        return Math.min(newest, ChatKeys.bucketOf(conversation.getCreatedAt()));
+    }
+
+    private static LocalDateTime expiresAt(Conversation conversation) {
+        return conversation != null ? conversation.getExpiresAt() : null;
     }
 }
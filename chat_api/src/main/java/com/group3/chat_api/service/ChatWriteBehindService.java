@@ -0,0 +1,312 @@
+package com.group3.chat_api.service;
+
+import com.datastax.oss.driver.api.core.cql.BatchType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.datastax.oss.driver.api.core.uuid.Uuids;
+import com.group3.chat_api.mapper.ChatMapper;
+import com.group3.chat_api.model.Chat;
+import com.group3.chat_api.model.OutboxEvent;
+import com.group3.chat_api.model.SequencedChat;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.cassandra.core.CassandraBatchOperations;
+import org.springframework.data.cassandra.core.CassandraOperations;
+import org.springframework.data.cassandra.core.InsertOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Buffers chat inserts off the STOMP inbound threads. A single flusher drains the queue when
+// it reaches batch-size or every flush-interval-ms, and writes one batch per
+// (conversationId, bucket) partition. The batch also carries the same chats' chat_by_sequence
+// and chat_outbox rows, and is logged so a chat is never stored without its outbox event.
+// ChatOutboxRelayService publishes the outbox, so nothing here waits on RabbitMQ.
+// Stored partitions are pushed onto the conversation's recent-message cache from here, so the
+// STOMP threads never wait on Redis either. A partition that fails to write is retried with
+// exponential backoff. Chats are acknowledged before they are stored, so they are only given up
+// on after max-attempts, and then through a dead-letter list in Redis, with the conversation's
+// tail cache evicted so it is rebuilt from what Cassandra actually holds. While retries hold a queue's worth of chats, the flusher stops
+// draining, the queue fills and senders fall back to writing synchronously.
+@Slf4j
+@Service
+public class ChatWriteBehindService {
+    private static final String DEAD_LETTER_KEY = "chat:write-behind:dead-letter";
+
+    private final CassandraOperations cassandraOperations;
+    private final InboxService inboxService;
+    private final ChatSearchService chatSearchService;
+    private final ChatMapper chatMapper;
+    private final ConversationExpiryService conversationExpiryService;
+    private final ChatCacheService chatCacheService;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final BlockingQueue<Chat> queue;
+    private final int capacity;
+    private final InsertOptions outboxOptions;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final long offerTimeoutMs;
+    private final int maxAttempts;
+    private final long retryBaseMs;
+    private final long retryMaxMs;
+    private final Counter flushedCounter;
+    private final Counter failedCounter;
+    private final Counter blockedCounter;
+    private final Counter deadLetteredCounter;
+    // Only touched by the flusher thread, and by stop() once it has exited
+    private final List<PendingRetry> retries = new ArrayList<>();
+    private int retryingChats;
+    private Thread flusher;
+    private volatile boolean running;
+
+    private record PendingRetry(List<Chat> partition, int attempt, long dueNanos) {
+    }
+
+    public ChatWriteBehindService(CassandraOperations cassandraOperations,
+                                  InboxService inboxService,
+                                  ChatSearchService chatSearchService,
+                                  ChatMapper chatMapper,
+                                  ConversationExpiryService conversationExpiryService,
+                                  ChatCacheService chatCacheService,
+                                  StringRedisTemplate redisTemplate,
+                                  ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${chat.write-behind.capacity:10000}") int capacity,
+                                  @Value("${chat.write-behind.batch-size:100}") int batchSize,
+                                  @Value("${chat.write-behind.flush-interval-ms:50}") long flushIntervalMs,
+                                  @Value("${chat.write-behind.offer-timeout-ms:500}") long offerTimeoutMs,
+                                  @Value("${chat.write-behind.max-attempts:8}") int maxAttempts,
+                                  @Value("${chat.write-behind.retry-base-ms:100}") long retryBaseMs,
+                                  @Value("${chat.write-behind.retry-max-ms:30000}") long retryMaxMs,
+                                  @Value("${chat.outbox.retention-hours:24}") long outboxRetentionHours) {
+        this.cassandraOperations = cassandraOperations;
+        this.inboxService = inboxService;
+        this.chatSearchService = chatSearchService;
+        this.chatMapper = chatMapper;
+        this.conversationExpiryService = conversationExpiryService;
+        this.chatCacheService = chatCacheService;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.capacity = capacity;
+        this.outboxOptions = InsertOptions.builder().ttl(Duration.ofHours(outboxRetentionHours)).build();
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.maxAttempts = maxAttempts;
+        this.retryBaseMs = retryBaseMs;
+        this.retryMaxMs = retryMaxMs;
+        this.flushedCounter = meterRegistry.counter("chat.write_behind.flushed");
+        this.failedCounter = meterRegistry.counter("chat.write_behind.failed");
+        this.blockedCounter = meterRegistry.counter("chat.write_behind.blocked");
+        this.deadLetteredCounter = meterRegistry.counter("chat.write_behind.dead_lettered");
+        Gauge.builder("chat.write_behind.queue.size", queue, BlockingQueue::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        flusher = new Thread(this::run, "chat-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        flusher.interrupt();
+        flusher.join(TimeUnit.SECONDS.toMillis(10));
+        // Anything still queued after the flusher exits is written before shutdown completes
+        List<Chat> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        flush(remaining);
+        // No time left to back off: failed partitions get one last try, then the dead-letter list
+        for (PendingRetry retry : retries) {
+            attempt(retry.partition(), maxAttempts);
+        }
+        retries.clear();
+    }
+
+    // Blocks the caller for up to offer-timeout-ms when the queue is full. If the flusher still
+    // hasn't caught up, the caller writes synchronously so the message is never dropped.
+    public void enqueue(Chat chat) {
+        try {
+            if (queue.offer(chat)) {
+                return;
+            }
+            blockedCounter.increment();
+            if (queue.offer(chat, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.warn("Chat write-behind queue full, writing chat {} synchronously", chat.getChatId());
+        write(List.of(chat));
+        // Jumped the queued backlog, so it can't be pushed ahead of it
+        chatCacheService.evict(chat.getConversationId());
+        updateInbox(List.of(chat));
+        chatSearchService.index(chat.getConversationId(), List.of(chat));
+    }
+
+    private void run() {
+        List<Chat> pending = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                retryDue();
+                if (retryingChats >= capacity) {
+                    // Cassandra is failing; let the queue fill rather than pile up more retries
+                    Thread.sleep(flushIntervalMs);
+                    continue;
+                }
+                Chat first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                pending.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (pending.size() < batchSize) {
+                    if (queue.drainTo(pending, batchSize - pending.size()) > 0) {
+                        continue;
+                    }
+                    long waitNanos = deadline - System.nanoTime();
+                    Chat next = waitNanos > 0 ? queue.poll(waitNanos, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    pending.add(next);
+                }
+            } catch (InterruptedException e) {
+                // stop() interrupts to wake us up; the pending chats are still flushed below
+                break;
+            } finally {
+                flush(pending);
+                pending.clear();
+            }
+        }
+    }
+
+    private void flush(List<Chat> chats) {
+        if (chats.isEmpty()) {
+            return;
+        }
+        Map<String, List<Chat>> partitions = new LinkedHashMap<>();
+        for (Chat chat : chats) {
+            partitions.computeIfAbsent(chat.getConversationId() + ":" + chat.getBucket(), k -> new ArrayList<>())
+                    .add(chat);
+        }
+        for (List<Chat> partition : partitions.values()) {
+            attempt(partition, 1);
+        }
+    }
+
+    private void attempt(List<Chat> partition, int attempt) {
+        try {
+            write(partition);
+            flushedCounter.increment(partition.size());
+        } catch (Exception e) {
+            failedCounter.increment(partition.size());
+            if (attempt >= maxAttempts) {
+                deadLetter(partition, e);
+                return;
+            }
+            long delayMs = Math.min(retryBaseMs << Math.min(attempt - 1, 20), retryMaxMs);
+            log.warn("Failed to flush {} chats for conversation {} (attempt {}), retrying in {} ms: {}",
+                    partition.size(), partition.get(0).getConversationId(), attempt, delayMs, e.getMessage());
+            retries.add(new PendingRetry(partition, attempt + 1,
+                    System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs)));
+            retryingChats += partition.size();
+            return;
+        }
+        cache(partition, attempt);
+        updateInbox(partition);
+        chatSearchService.index(partition.get(0).getConversationId(), partition);
+    }
+
+    private void retryDue() {
+        if (retries.isEmpty()) {
+            return;
+        }
+        long now = System.nanoTime();
+        List<PendingRetry> due = new ArrayList<>();
+        retries.removeIf(retry -> retry.dueNanos() - now <= 0 && due.add(retry));
+        for (PendingRetry retry : due) {
+            retryingChats -= retry.partition().size();
+            attempt(retry.partition(), retry.attempt());
+        }
+    }
+
+    // A retried partition is older than chats flushed while it waited, so pushing it would put it
+    // ahead of them; the tail cache is dropped instead and rebuilt in order on the next read
+    private void cache(List<Chat> partition, int attempt) {
+        UUID conversationId = partition.get(0).getConversationId();
+        if (attempt > 1) {
+            chatCacheService.evict(conversationId);
+        } else {
+            chatCacheService.append(conversationId, partition);
+        }
+    }
+
+    // Keeps the chats for manual replay and stops serving them from the tail cache
+    private void deadLetter(List<Chat> partition, Exception cause) {
+        deadLetteredCounter.increment(partition.size());
+        log.error("Giving up on {} chats for conversation {} after {} attempts: ",
+                partition.size(), partition.get(0).getConversationId(), maxAttempts, cause);
+        chatCacheService.evict(partition.get(0).getConversationId());
+        try {
+            List<String> json = new ArrayList<>(partition.size());
+            for (Chat chat : partition) {
+                json.add(objectMapper.writeValueAsString(chat));
+            }
+            redisTemplate.opsForList().leftPushAll(DEAD_LETTER_KEY, json);
+        } catch (Exception e) {
+            // Last resort: the log line is all that is left of these chats
+            log.error("Unable to dead-letter chats {}: {}",
+                    partition.stream().map(Chat::getChatId).toList(), e.getMessage());
+        }
+    }
+
+    private void write(List<Chat> partition) {
+        InsertOptions options = conversationExpiryService.insertOptions(partition.get(0).getConversationId());
+        List<SequencedChat> sequenced = partition.stream()
+                .filter(chat -> chat.getSeq() != null)
+                .map(chatMapper::toSequenced)
+                .toList();
+        // Event ids are stamped at write time, not send time, so the relay's settle window only
+        // has to cover clock skew and this batch rather than the write-behind backlog
+        List<OutboxEvent> outbox = partition.stream()
+                .map(chat -> chatMapper.toOutboxEvent(chat, Uuids.timeBased()))
+                .toList();
+        CassandraBatchOperations batch = cassandraOperations.batchOps(BatchType.LOGGED)
+                .insert(partition, options)
+                .insert(outbox, outboxOptions);
+        if (!sequenced.isEmpty()) {
+            batch.insert(sequenced, options);
+        }
+        batch.execute();
+    }
+
+    // One inbox update per member per flushed partition, however many chats the batch held
+    private void updateInbox(List<Chat> partition) {
+        try {
+            inboxService.recordChats(partition.get(0).getConversationId(), partition);
+        } catch (Exception e) {
+            log.error("Failed to update inbox for conversation {}: ", partition.get(0).getConversationId(), e);
+        }
+    }
+}
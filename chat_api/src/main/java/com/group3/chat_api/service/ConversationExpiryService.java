@@ -0,0 +1,79 @@
+package com.group3.chat_api.service;
+
+import com.group3.chat_api.model.Conversation;
+import com.group3.chat_api.repository.ConversationRepository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.cassandra.core.InsertOptions;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+// Every row scoped to a conversation is written with a TTL that ends at the conversation's
+// expiresAt, so Cassandra drops chats, memberships and inbox rows on its own.
+@Slf4j
+@Service
+public class ConversationExpiryService {
+    public static final Duration CONVERSATION_LIFETIME = Duration.ofDays(30);
+    private static final int CACHE_SIZE = 10_000;
+
+    private final ConversationRepository conversationRepository;
+    // Expiry never changes once a conversation exists, so lookups from the write path are cached
+    private final Map<UUID, LocalDateTime> expiries = Collections.synchronizedMap(
+            new LinkedHashMap<UUID, LocalDateTime>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<UUID, LocalDateTime> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            });
+
+    public ConversationExpiryService(ConversationRepository conversationRepository) {
+        this.conversationRepository = conversationRepository;
+    }
+
+    public void remember(Conversation conversation) {
+        if (conversation.getExpiresAt() != null) {
+            expiries.put(conversation.getConversationId(), conversation.getExpiresAt());
+        }
+    }
+
+    public void forget(UUID conversationId) {
+        expiries.remove(conversationId);
+    }
+
+    // Null when the conversation is unknown, in which case callers fall back to the full lifetime
+    public LocalDateTime expiresAt(UUID conversationId) {
+        LocalDateTime expiresAt = expiries.get(conversationId);
+        if (expiresAt != null) {
+            return expiresAt;
+        }
+        Conversation conversation = conversationRepository.findByConversationId(conversationId);
+        if (conversation == null || conversation.getExpiresAt() == null) {
+            return null;
+        }
+        remember(conversation);
+        return conversation.getExpiresAt();
+    }
+
+    public Duration ttlUntil(LocalDateTime expiresAt) {
+        if (expiresAt == null) {
+            return CONVERSATION_LIFETIME;
+        }
+        Duration remaining = Duration.between(LocalDateTime.now(), expiresAt);
+        // A TTL of zero means "never expire" to Cassandra, so already-expired rows get the minimum
+        return remaining.getSeconds() < 1 ? Duration.ofSeconds(1) : remaining;
+    }
+
+    public InsertOptions insertOptions(LocalDateTime expiresAt) {
+        return InsertOptions.builder().ttl(ttlUntil(expiresAt)).build();
+    }
+
+    public InsertOptions insertOptions(UUID conversationId) {
+        return insertOptions(expiresAt(conversationId));
+    }
+}
@@ -1,36 +1,91 @@
 package com.group3.chat_api.service;
 
+import com.group3.chat_api.mapper.ConversationManagerMapper;
 import com.group3.chat_api.model.ConversationManager;
-import com.group3.chat_api.repository.ConversationManagerRepository;
+import com.group3.chat_api.model.ConversationMember;
+import com.group3.chat_api.repository.ConversationMemberRepository;
+import com.group3.chat_api.repository.ReactiveConversationManagerRepository;
+import com.group3.chat_api.repository.ReactiveConversationMemberRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.cassandra.core.CassandraOperations;
+import org.springframework.data.cassandra.core.InsertOptions;
+import org.springframework.data.cassandra.core.query.Criteria;
+import org.springframework.data.cassandra.core.query.Query;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ConversationManagerService {
-    private final ConversationManagerRepository conversationManagementRepository;
+    private static final int MEMBER_CACHE_SIZE = 10_000;
 
+    private final ConversationMemberRepository conversationMemberRepository;
+    private final ReactiveConversationManagerRepository reactiveConversationManagerRepository;
+    private final ReactiveConversationMemberRepository reactiveConversationMemberRepository;
+    private final ConversationManagerMapper conversationManagerMapper;
+    private final CassandraOperations cassandraOperations;
+    private final ConversationExpiryService conversationExpiryService;
+    // Confirmed memberships only, so receipts and typing from a member cost no read after the first
+    private final Set<String> knownMembers = Collections.newSetFromMap(Collections.synchronizedMap(
+            new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    return size() > MEMBER_CACHE_SIZE;
+                }
+            }));
+
+    // Written to both user_conversation and conversation_members so either side is a single partition read
     public ConversationManager addUserToConversation(ConversationManager conversationManager) {
-        return conversationManagementRepository.save(conversationManager);
+        InsertOptions options = conversationExpiryService.insertOptions(conversationManager.getConversationId());
+        cassandraOperations.insert(conversationManagerMapper.toMember(conversationManager), options);
+        cassandraOperations.insert(conversationManager, options);
+        return conversationManager;
     }
 
-    public List<ConversationManager> getAllConversations(String userId) {
-        try {
-            return conversationManagementRepository.findByUserId(userId);
-        } catch (Exception e) {
-            log.error("Error unable to get all conversations: ", e);
-            throw new RuntimeException(e);
+    public Flux<ConversationManager> getAllConversations(String userId) {
+        return reactiveConversationManagerRepository.findByUserId(userId)
+                .doOnError(e -> log.error("Error unable to get all conversations: ", e));
+    }
+
+    public Flux<ConversationManager> findMembers(UUID conversationId) {
+        return reactiveConversationMemberRepository.findByConversationId(conversationId)
+                .map(conversationManagerMapper::fromMember)
+                .doOnError(e -> log.error("Error unable to get conversations: ", e));
+    }
+
+    public boolean isMember(UUID conversationId, String userId) {
+        if (conversationId == null || userId == null) {
+            return false;
+        }
+        String key = conversationId + "|" + userId;
+        if (knownMembers.contains(key)) {
+            return true;
+        }
+        boolean member = cassandraOperations.selectOne(Query.query(
+                Criteria.where("conversationid").is(conversationId),
+                Criteria.where("userid").is(userId)), ConversationMember.class) != null;
+        if (member) {
+            knownMembers.add(key);
         }
+        return member;
     }
 
+    // Blocking variant for the write-behind flusher, which already runs on its own thread
     public List<ConversationManager> getConversationById(UUID conversationId) {
         try {
-            return conversationManagementRepository.findByConversationId(conversationId);
+            return conversationMemberRepository.findByConversationId(conversationId)
+                    .stream()
+                    .map(conversationManagerMapper::fromMember)
+                    .toList();
         } catch (Exception e) {
             log.error("Error unable to get conversations: ", e);
             throw new RuntimeException(e);
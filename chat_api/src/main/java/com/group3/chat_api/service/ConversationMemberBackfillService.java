@@ -0,0 +1,63 @@
+package com.group3.chat_api.service;
+
+import com.group3.chat_api.mapper.ConversationManagerMapper;
+import com.group3.chat_api.model.ConversationManager;
+import com.group3.chat_api.model.ConversationMember;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.cassandra.core.CassandraOperations;
+import org.springframework.data.cassandra.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Fills conversation_members from existing user_conversation rows.
+// Enable with chat.members-backfill.enabled=true; rows are upserts so re-running is harmless.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "chat.members-backfill.enabled", havingValue = "true")
+public class ConversationMemberBackfillService {
+    private static final int CHUNK_SIZE = 500;
+
+    private final CassandraOperations cassandraOperations;
+    private final ConversationExpiryService conversationExpiryService;
+    private final ConversationManagerMapper conversationManagerMapper;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        log.info("Starting conversation_members backfill");
+        long written = 0;
+        List<ConversationMember> chunk = new ArrayList<>(CHUNK_SIZE);
+
+        try (Stream<ConversationManager> rows = cassandraOperations.stream(Query.empty(), ConversationManager.class)) {
+            for (ConversationManager row : (Iterable<ConversationManager>) rows::iterator) {
+                chunk.add(conversationManagerMapper.toMember(row));
+                if (chunk.size() == CHUNK_SIZE) {
+                    write(chunk);
+                    written += chunk.size();
+                    chunk.clear();
+                    log.info("Backfilled {} conversation members", written);
+                }
+            }
+            write(chunk);
+            written += chunk.size();
+        } catch (Exception e) {
+            log.error("Conversation member backfill stopped after {} rows: ", written, e);
+            return;
+        }
+        log.info("Conversation member backfill finished, {} rows written", written);
+    }
+
+    private void write(List<ConversationMember> chunk) {
+        for (ConversationMember member : chunk) {
+            cassandraOperations.insert(member, conversationExpiryService.insertOptions(member.getConversationId()));
+        }
+    }
+}
@@ -1,14 +1,16 @@
 package com.group3.chat_api.service;
 
 import com.group3.chat_api.model.Conversation;
-import com.group3.chat_api.repository.ConversationRepository;
+import com.group3.chat_api.repository.ReactiveConversationRepository;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.cassandra.core.CassandraOperations;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
@@ -16,41 +18,38 @@ import java.util.UUID;
 @Service
 @RequiredArgsConstructor
 public class ConversationService {
-    private final ConversationRepository conversationRepository;
+    private final ReactiveConversationRepository reactiveConversationRepository;
+    private final CassandraOperations cassandraOperations;
+    private final ConversationExpiryService conversationExpiryService;
 
     public Conversation createConversation(Conversation conversation) {
+        prepareConversation(conversation);
+        cassandraOperations.insert(conversation,
+                conversationExpiryService.insertOptions(conversation.getExpiresAt()));
+        conversationExpiryService.remember(conversation);
+        return conversation;
+    }
+
+    // Stamps creation and expiry without saving, for callers that write the row in a batch
+    public Conversation prepareConversation(Conversation conversation) {
         conversation.setCreatedAt(LocalDateTime.now());
 
-       // Chat expires one week from creation
+       // Chat expires one month from creation
         LocalDateTime dt = LocalDateTime.now();
-        conversation.setExpiresAt(dt.plusDays(30));
+        conversation.setExpiresAt(dt.plus(ConversationExpiryService.CONVERSATION_LIFETIME));
 
-        return conversationRepository.save(conversation);
+        return conversation;
     }
 
-    public List<Conversation> getAllConversations(List<UUID> conversationIds) {
-        try {
-            List<Conversation> conversationList = new ArrayList<>();
-            for (UUID convoId : conversationIds) {
-                Conversation convo = conversationRepository.findByConversationId(convoId);
-
-                if (convo != null) {
-                    conversationList.add(convo);
-                }
-            }
-            return conversationList;
-        } catch (Exception e) {
-            log.error("Error retrieving conversations: ", e);
-            throw new RuntimeException(e);
-        }
+    // Lookups are issued concurrently but emitted in the order the ids were given; missing ids are skipped
+    public Flux<Conversation> getAllConversations(List<UUID> conversationIds) {
+        return Flux.fromIterable(conversationIds)
+                .flatMapSequential(reactiveConversationRepository::findByConversationId)
+                .doOnError(e -> log.error("Error retrieving conversations: ", e));
     }
 
-    public Conversation getConversation(UUID conversationId) {
-        try {
-            return conversationRepository.findByConversationId(conversationId);
-        } catch (Exception e) {
-            log.error("Error retrieving conversation by id: ", e);
-            throw new RuntimeException(e);
-        }
+    public Mono<Conversation> getConversation(UUID conversationId) {
+        return reactiveConversationRepository.findByConversationId(conversationId)
+                .doOnError(e -> log.error("Error retrieving conversation by id: ", e));
     }
 }
@@ -0,0 +1,193 @@
+package com.group3.chat_api.service;
+
+import com.group3.chat_api.model.Chat;
+import com.group3.chat_api.model.ChatKeys;
+import com.group3.chat_api.model.Conversation;
+import com.group3.chat_api.model.ConversationManager;
+import com.group3.chat_api.model.ConversationMember;
+import com.group3.chat_api.model.InboxEntry;
+import com.group3.chat_api.model.ReadMark;
+import com.group3.chat_api.model.SequencedChat;
+import com.group3.chat_api.model.UnreadCounter;
+import com.group3.chat_api.repository.ConversationMemberRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.cassandra.core.CassandraOperations;
+import org.springframework.data.cassandra.core.query.Criteria;
+import org.springframework.data.cassandra.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Rows written with a TTL expire on their own. This cleans up what TTLs can't reach: rows
+// written before TTLs were applied, and state outside Cassandra such as the Redis tail cache.
+// It runs on a minimum-priority thread and pauses after every batch-size deletions so it never
+// competes with live traffic. Every delete is a whole partition or a full primary key, so each
+// expired conversation leaves a handful of tombstones rather than one per message.
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "chat.sweeper.enabled", havingValue = "true", matchIfMissing = true)
+public class ConversationSweeperService {
+    private final CassandraOperations cassandraOperations;
+    private final ConversationMemberRepository conversationMemberRepository;
+    private final ChatCacheService chatCacheService;
+    private final ConversationExpiryService conversationExpiryService;
+    private final UnreadCounterService unreadCounterService;
+    private final long intervalMs;
+    private final int batchSize;
+    private final long pauseMs;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "conversation-sweeper");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    public ConversationSweeperService(CassandraOperations cassandraOperations,
+                                      ConversationMemberRepository conversationMemberRepository,
+                                      ChatCacheService chatCacheService,
+                                      ConversationExpiryService conversationExpiryService,
+                                      UnreadCounterService unreadCounterService,
+                                      @Value("${chat.sweeper.interval-ms:3600000}") long intervalMs,
+                                      @Value("${chat.sweeper.batch-size:50}") int batchSize,
+                                      @Value("${chat.sweeper.pause-ms:1000}") long pauseMs) {
+        this.cassandraOperations = cassandraOperations;
+        this.conversationMemberRepository = conversationMemberRepository;
+        this.chatCacheService = chatCacheService;
+        this.conversationExpiryService = conversationExpiryService;
+        this.unreadCounterService = unreadCounterService;
+        this.intervalMs = intervalMs;
+        this.batchSize = batchSize;
+        this.pauseMs = pauseMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::sweep, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    public void sweep() {
+        try {
+            int conversations = sweepConversations();
+            int inboxEntries = sweepInbox();
+            int unreadCounters = sweepUnreadCounters();
+            log.info("Sweeper removed {} expired conversations and {} orphaned inbox entries, and reset {} unread counters",
+                    conversations, inboxEntries, unreadCounters);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Conversation sweep failed: ", e);
+        }
+    }
+
+    private int sweepConversations() throws InterruptedException {
+        LocalDateTime now = LocalDateTime.now();
+        int removed = 0;
+        try (Stream<Conversation> rows = cassandraOperations.stream(Query.empty(), Conversation.class)) {
+            for (Conversation conversation : (Iterable<Conversation>) rows::iterator) {
+                if (conversation.getExpiresAt() == null || conversation.getExpiresAt().isAfter(now)) {
+                    continue;
+                }
+                removeConversation(conversation);
+                removed++;
+                throttle(removed);
+            }
+        }
+        return removed;
+    }
+
+    // Inbox rows can outlive their conversation row if they were written before TTLs existed
+    private int sweepInbox() throws InterruptedException {
+        LocalDateTime now = LocalDateTime.now();
+        int removed = 0;
+        try (Stream<InboxEntry> rows = cassandraOperations.stream(Query.empty(), InboxEntry.class)) {
+            for (InboxEntry entry : (Iterable<InboxEntry>) rows::iterator) {
+                if (entry.getExpiresAt() == null || entry.getExpiresAt().isAfter(now)) {
+                    continue;
+                }
+                cassandraOperations.delete(entry);
+                chatCacheService.evict(entry.getConversationId());
+                removed++;
+                throttle(removed);
+            }
+        }
+        return removed;
+    }
+
+    // Counters can't have a TTL, so once a user's inbox row has expired their counter is zeroed.
+    // Rows already at zero are left alone; see UnreadCounter for why they aren't deleted.
+    private int sweepUnreadCounters() throws InterruptedException {
+        int reset = 0;
+        try (Stream<UnreadCounter> rows = cassandraOperations.stream(Query.empty(), UnreadCounter.class)) {
+            for (UnreadCounter counter : (Iterable<UnreadCounter>) rows::iterator) {
+                if (counter.getUnread() == null || counter.getUnread() == 0) {
+                    continue;
+                }
+                InboxEntry entry = cassandraOperations.selectOne(Query.query(
+                        Criteria.where("userid").is(counter.getUserId()),
+                        Criteria.where("conversationid").is(counter.getConversationId())), InboxEntry.class);
+                if (entry != null) {
+                    continue;
+                }
+                unreadCounterService.reset(counter.getUserId(), counter.getConversationId());
+                reset++;
+                throttle(reset);
+            }
+        }
+        return reset;
+    }
+
+    private void removeConversation(Conversation conversation) {
+        UUID conversationId = conversation.getConversationId();
+        for (ConversationMember member : conversationMemberRepository.findByConversationId(conversationId)) {
+            cassandraOperations.delete(ConversationManager.builder()
+                    .userId(member.getUserId())
+                    .conversationId(conversationId)
+                    .build());
+            cassandraOperations.delete(InboxEntry.builder()
+                    .userId(member.getUserId())
+                    .conversationId(conversationId)
+                    .build());
+            unreadCounterService.reset(member.getUserId(), conversationId);
+        }
+        cassandraOperations.delete(Query.query(Criteria.where("conversationid").is(conversationId)),
+                ReadMark.class);
+        cassandraOperations.delete(Query.query(Criteria.where("conversationid").is(conversationId)),
+                ConversationMember.class);
+
+        LocalDateTime createdAt = conversation.getCreatedAt() != null
+                ? conversation.getCreatedAt()
+                : conversation.getExpiresAt().minus(ConversationExpiryService.CONVERSATION_LIFETIME);
+        for (int bucket = ChatKeys.bucketOf(createdAt); bucket <= ChatKeys.bucketOf(conversation.getExpiresAt()); bucket++) {
+            cassandraOperations.delete(Query.query(
+                    Criteria.where("conversationid").is(conversationId),
+                    Criteria.where("bucket").is(bucket)), Chat.class);
+        }
+        cassandraOperations.delete(Query.query(Criteria.where("conversationid").is(conversationId)),
+                SequencedChat.class);
+
+        cassandraOperations.delete(conversation);
+        chatCacheService.evict(conversationId);
+        conversationExpiryService.forget(conversationId);
+    }
+
+    private void throttle(int removed) throws InterruptedException {
+        if (removed % batchSize == 0) {
+            Thread.sleep(pauseMs);
+        }
+    }
+}
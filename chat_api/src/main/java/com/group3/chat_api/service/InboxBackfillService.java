@@ -0,0 +1,62 @@
+package com.group3.chat_api.service;
+
+import com.group3.chat_api.model.Conversation;
+import com.group3.chat_api.model.ConversationManager;
+import com.group3.chat_api.repository.ConversationRepository;
+import com.group3.chat_api.repository.InboxRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.cassandra.core.CassandraOperations;
+import org.springframework.data.cassandra.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.stream.Stream;
+
+// Writes a user_inbox row for every user_conversation row that doesn't have one yet, so
+// conversations from before the inbox existed show up in the conversation list.
+// Enable with chat.inbox-backfill.enabled=true; existing inbox rows are left untouched, so
+// re-running is harmless and never rewinds a conversation's last activity.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "chat.inbox-backfill.enabled", havingValue = "true")
+public class InboxBackfillService {
+    private static final int LOG_EVERY = 500;
+
+    private final CassandraOperations cassandraOperations;
+    private final ConversationRepository conversationRepository;
+    private final InboxRepository inboxRepository;
+    private final InboxService inboxService;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        log.info("Starting user_inbox backfill");
+        long scanned = 0;
+        long written = 0;
+
+        try (Stream<ConversationManager> rows = cassandraOperations.stream(Query.empty(), ConversationManager.class)) {
+            for (ConversationManager row : (Iterable<ConversationManager>) rows::iterator) {
+                scanned++;
+                if (inboxRepository.findByUserIdAndConversationId(row.getUserId(), row.getConversationId()) == null) {
+                    // Expired conversations are already gone; their membership rows follow via TTL
+                    Conversation conversation = conversationRepository.findByConversationId(row.getConversationId());
+                    if (conversation != null) {
+                        inboxService.addConversation(row.getUserId(), conversation);
+                        written++;
+                    }
+                }
+                if (scanned % LOG_EVERY == 0) {
+                    log.info("Inbox backfill scanned {} memberships, {} rows written", scanned, written);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Inbox backfill stopped after {} memberships: ", scanned, e);
+            return;
+        }
+        log.info("Inbox backfill finished, {} memberships scanned and {} rows written", scanned, written);
+    }
+}
@@ -0,0 +1,112 @@
+package com.group3.chat_api.service;
+
+import com.group3.chat_api.model.Chat;
+import com.group3.chat_api.model.Conversation;
+import com.group3.chat_api.model.ConversationManager;
+import com.group3.chat_api.model.InboxEntry;
+import com.group3.chat_api.repository.ConversationRepository;
+import com.group3.chat_api.repository.InboxRepository;
+import com.group3.chat_api.repository.ReactiveInboxRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.cassandra.core.CassandraOperations;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class InboxService {
+    private static final int PREVIEW_LENGTH = 100;
+
+    private final InboxRepository inboxRepository;
+    private final ReactiveInboxRepository reactiveInboxRepository;
+    private final ConversationRepository conversationRepository;
+    private final ConversationManagerService conversationManagerService;
+    private final CassandraOperations cassandraOperations;
+    private final ConversationExpiryService conversationExpiryService;
+    private final UnreadCounterService unreadCounterService;
+
+    // Most recently active first; the partition holds one row per match so sorting here is cheap
+    public Mono<List<InboxEntry>> getInbox(String userId) {
+        return reactiveInboxRepository.findByUserId(userId)
+                .collectSortedList(Comparator.comparing(InboxService::activityOf).reversed())
+                .doOnError(e -> log.error("Error retrieving inbox: ", e));
+    }
+
+    public InboxEntry addConversation(String userId, Conversation conversation) {
+        return save(newEntry(userId, conversation));
+    }
+
+    public InboxEntry newEntry(String userId, Conversation conversation) {
+        return InboxEntry.builder()
+                .userId(userId)
+                .conversationId(conversation.getConversationId())
+                .createdAt(conversation.getCreatedAt())
+                .expiresAt(conversation.getExpiresAt())
+                .locked(conversation.getLocked())
+                .lastActivityAt(conversation.getCreatedAt())
+                .build();
+    }
+
+    // Applies a flushed batch of chats for one conversation as a single update per member
+    public void recordChats(UUID conversationId, List<Chat> chats) {
+        Chat latest = chats.stream()
+                .max(Comparator.comparingLong(chat -> chat.getChatId().timestamp()))
+                .orElse(null);
+        if (latest == null) {
+            return;
+        }
+
+        Conversation conversation = null;
+        for (ConversationManager member : conversationManagerService.getConversationById(conversationId)) {
+            String userId = member.getUserId();
+            InboxEntry entry = inboxRepository.findByUserIdAndConversationId(userId, conversationId);
+            if (entry == null) {
+                if (conversation == null) {
+                    conversation = conversationRepository.findByConversationId(conversationId);
+                }
+                if (conversation == null) {
+                    return;
+                }
+                entry = addConversation(userId, conversation);
+            }
+
+            entry.setLastActivityAt(latest.getSentAt());
+            entry.setLastMessage(preview(latest.getMessage()));
+            entry.setLastSenderId(latest.getSenderId());
+            save(entry);
+
+            long fromOthers = chats.stream()
+                    .filter(chat -> !userId.equals(chat.getSenderId()))
+                    .count();
+            unreadCounterService.increment(userId, conversationId, fromOthers);
+        }
+    }
+
+    // Every write re-applies the TTL; a plain save would leave the rewritten columns immortal
+    private InboxEntry save(InboxEntry entry) {
+        cassandraOperations.insert(entry, conversationExpiryService.insertOptions(entry.getExpiresAt()));
+        return entry;
+    }
+
+    private static String preview(String message) {
+        if (message == null || message.length() <= PREVIEW_LENGTH) {
+            return message;
+        }
+        return message.substring(0, PREVIEW_LENGTH);
+    }
+
+    private static LocalDateTime activityOf(InboxEntry entry) {
+        if (entry.getLastActivityAt() != null) {
+            return entry.getLastActivityAt();
+        }
+        return entry.getCreatedAt() != null ? entry.getCreatedAt() : LocalDateTime.MIN;
+    }
+}
@@ -0,0 +1,98 @@
+package com.group3.chat_api.service;
+
+import com.group3.chat_api.mapper.ConversationManagerMapper;
+import com.group3.chat_api.model.Conversation;
+import com.group3.chat_api.model.ConversationManager;
+import com.group3.chat_api.repository.ConversationRepository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.cassandra.core.CassandraBatchOperations;
+import org.springframework.data.cassandra.core.CassandraOperations;
+import org.springframework.data.cassandra.core.InsertOptions;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+// Turns ML match events into conversations. A pair of users always maps to the same
+// conversationId, so a repeated match event rewrites nothing that already exists.
+@Slf4j
+@Service
+public class MatchService {
+    private final CassandraOperations cassandraOperations;
+    private final ConversationRepository conversationRepository;
+    private final ConversationService conversationService;
+    private final ConversationManagerMapper conversationManagerMapper;
+    private final InboxService inboxService;
+    private final ConversationExpiryService conversationExpiryService;
+    // Pairs handled recently on this node, so redelivered or repeated events skip even the existence check
+    private final Set<UUID> recentPairs;
+
+    public MatchService(CassandraOperations cassandraOperations,
+                        ConversationRepository conversationRepository,
+                        ConversationService conversationService,
+                        ConversationManagerMapper conversationManagerMapper,
+                        InboxService inboxService,
+                        ConversationExpiryService conversationExpiryService,
+                        @Value("${chat.match.dedup-size:10000}") int dedupSize) {
+        this.cassandraOperations = cassandraOperations;
+        this.conversationRepository = conversationRepository;
+        this.conversationService = conversationService;
+        this.conversationManagerMapper = conversationManagerMapper;
+        this.inboxService = inboxService;
+        this.conversationExpiryService = conversationExpiryService;
+        this.recentPairs = Collections.synchronizedSet(Collections.newSetFromMap(
+                new LinkedHashMap<UUID, Boolean>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<UUID, Boolean> eldest) {
+                        return size() > dedupSize;
+                    }
+                }));
+    }
+
+    public static UUID conversationIdFor(String userA, String userB) {
+        String pair = userA.compareTo(userB) <= 0 ? userA + "|" + userB : userB + "|" + userA;
+        return UUID.nameUUIDFromBytes(pair.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Returns false when the pair already has a conversation. The conversation, both
+    // user_conversation and conversation_members rows and both inbox rows go out as one
+    // logged batch, so a match is either fully created or not at all.
+    public boolean createConversation(String userA, String userB) {
+        UUID conversationId = conversationIdFor(userA, userB);
+        if (recentPairs.contains(conversationId)
+                || conversationRepository.findByConversationId(conversationId) != null) {
+            recentPairs.add(conversationId);
+            return false;
+        }
+
+        Conversation conversation = conversationService.prepareConversation(Conversation.builder()
+                .conversationId(conversationId)
+                .locked(false)
+                .build());
+
+        InsertOptions options = conversationExpiryService.insertOptions(conversation.getExpiresAt());
+        CassandraBatchOperations batch = cassandraOperations.batchOps().insert(conversation, options);
+        for (String userId : List.of(userA, userB)) {
+            ConversationManager manager = ConversationManager.builder()
+                    .userId(userId)
+                    .conversationId(conversationId)
+                    .build();
+            batch.insert(manager, options)
+                    .insert(conversationManagerMapper.toMember(manager), options)
+                    .insert(inboxService.newEntry(userId, conversation), options);
+        }
+        batch.execute();
+        conversationExpiryService.remember(conversation);
+
+        recentPairs.add(conversationId);
+        log.info("Created conversation {} for match {} / {}", conversationId, userA, userB);
+        return true;
+    }
+}
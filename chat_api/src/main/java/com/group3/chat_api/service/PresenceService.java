@@ -0,0 +1,226 @@
+package com.group3.chat_api.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.group3.chat_api.dto.PresenceResponse;
+import com.group3.chat_api.dto.PresenceUpdate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Tracks which users have open STOMP sessions. Local sessions live in a striped map so
+// connect/disconnect storms don't contend on one table; join/leave changes are coalesced per
+// user and published to the other nodes every flush-ms, with a full snapshot every
+// snapshot-ms so a node that dies without saying goodbye ages out of everyone's view.
+@Slf4j
+@Service
+public class PresenceService {
+    public static final String EXCHANGE = "proj2.presence";
+    private static final int STRIPES = 16;
+    private static final int LAST_SEEN_SIZE = 100_000;
+
+    private final RabbitTemplate rabbitTemplate;
+    private final ObjectMapper objectMapper;
+    private final long flushMs;
+    private final long snapshotMs;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @SuppressWarnings("unchecked")
+    private final Map<String, Set<String>>[] localSessions = new Map[STRIPES];
+    // Remote snapshots report every user on every node, so this keeps only the most recently
+    // touched users; an evicted user just shows no last-seen time
+    private final Map<String, LocalDateTime> lastSeen = Collections.synchronizedMap(
+            new LinkedHashMap<String, LocalDateTime>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, LocalDateTime> eldest) {
+                    return size() > LAST_SEEN_SIZE;
+                }
+            });
+    private final Map<String, Boolean> pendingChanges = new ConcurrentHashMap<>();
+    private final Map<String, RemoteNode> remoteNodes = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "presence-sync");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private record RemoteNode(Set<String> users, long lastHeardMs) {
+    }
+
+    public PresenceService(RabbitTemplate rabbitTemplate,
+                           ObjectMapper objectMapper,
+                           @Value("${chat.presence.flush-ms:250}") long flushMs,
+                           @Value("${chat.presence.snapshot-ms:30000}") long snapshotMs) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.objectMapper = objectMapper;
+        this.flushMs = flushMs;
+        this.snapshotMs = snapshotMs;
+        for (int i = 0; i < STRIPES; i++) {
+            localSessions[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::flushChanges, flushMs, flushMs, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::publishSnapshot, 0, snapshotMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+        // Tell the other nodes everyone here went offline rather than waiting for the snapshot to age out
+        publish(PresenceUpdate.builder()
+                .nodeId(nodeId)
+                .snapshot(true)
+                .online(List.of())
+                .offline(List.of())
+                .sentAt(LocalDateTime.now())
+                .build());
+    }
+
+    public void connect(String userId, String sessionId) {
+        stripe(userId).compute(userId, (id, sessions) -> {
+            Set<String> updated = sessions != null ? sessions : ConcurrentHashMap.newKeySet();
+            if (updated.add(sessionId) && updated.size() == 1) {
+                pendingChanges.put(id, true);
+            }
+            return updated;
+        });
+        lastSeen.put(userId, LocalDateTime.now());
+    }
+
+    public void disconnect(String userId, String sessionId) {
+        stripe(userId).computeIfPresent(userId, (id, sessions) -> {
+            sessions.remove(sessionId);
+            if (!sessions.isEmpty()) {
+                return sessions;
+            }
+            pendingChanges.put(id, false);
+            return null;
+        });
+        lastSeen.put(userId, LocalDateTime.now());
+    }
+
+    // Answered entirely from memory
+    public Map<String, PresenceResponse> getPresence(Collection<String> userIds) {
+        long staleBefore = System.currentTimeMillis() - 3 * snapshotMs;
+        Map<String, PresenceResponse> presence = new LinkedHashMap<>();
+        for (String userId : userIds) {
+            boolean online = stripe(userId).containsKey(userId);
+            if (!online) {
+                for (RemoteNode node : remoteNodes.values()) {
+                    if (node.lastHeardMs() >= staleBefore && node.users().contains(userId)) {
+                        online = true;
+                        break;
+                    }
+                }
+            }
+            presence.put(userId, PresenceResponse.builder()
+                    .online(online)
+                    .lastSeen(online ? LocalDateTime.now() : lastSeen.get(userId))
+                    .build());
+        }
+        return presence;
+    }
+
+    public void applyRemote(String message) {
+        try {
+            PresenceUpdate update = objectMapper.readValue(message, PresenceUpdate.class);
+            if (nodeId.equals(update.getNodeId())) {
+                return;
+            }
+            LocalDateTime sentAt = update.getSentAt() != null ? update.getSentAt() : LocalDateTime.now();
+            RemoteNode previous = remoteNodes.get(update.getNodeId());
+
+            Set<String> users = ConcurrentHashMap.newKeySet();
+            if (!Boolean.TRUE.equals(update.getSnapshot()) && previous != null) {
+                users.addAll(previous.users());
+            } else if (previous != null) {
+                // Users missing from a snapshot were last seen when it was taken
+                previous.users().forEach(userId -> lastSeen.put(userId, sentAt));
+            }
+            if (update.getOffline() != null) {
+                users.removeAll(update.getOffline());
+                update.getOffline().forEach(userId -> lastSeen.put(userId, sentAt));
+            }
+            if (update.getOnline() != null) {
+                users.addAll(update.getOnline());
+                update.getOnline().forEach(userId -> lastSeen.put(userId, sentAt));
+            }
+            remoteNodes.put(update.getNodeId(), new RemoteNode(users, System.currentTimeMillis()));
+        } catch (Exception e) {
+            log.warn("Ignoring malformed presence update: {}", e.getMessage());
+        }
+    }
+
+    private void flushChanges() {
+        if (pendingChanges.isEmpty()) {
+            return;
+        }
+        List<String> online = new ArrayList<>();
+        List<String> offline = new ArrayList<>();
+        for (String userId : new ArrayList<>(pendingChanges.keySet())) {
+            Boolean change = pendingChanges.remove(userId);
+            // A join and leave inside one window collapse to whatever the user's state is now
+            if (change == null) {
+                continue;
+            }
+            if (stripe(userId).containsKey(userId)) {
+                online.add(userId);
+            } else {
+                offline.add(userId);
+            }
+        }
+        publish(PresenceUpdate.builder()
+                .nodeId(nodeId)
+                .snapshot(false)
+                .online(online)
+                .offline(offline)
+                .sentAt(LocalDateTime.now())
+                .build());
+    }
+
+    private void publishSnapshot() {
+        List<String> online = new ArrayList<>();
+        for (Map<String, Set<String>> stripe : localSessions) {
+            online.addAll(stripe.keySet());
+        }
+        publish(PresenceUpdate.builder()
+                .nodeId(nodeId)
+                .snapshot(true)
+                .online(online)
+                .offline(List.of())
+                .sentAt(LocalDateTime.now())
+                .build());
+    }
+
+    private void publish(PresenceUpdate update) {
+        try {
+            rabbitTemplate.convertAndSend(EXCHANGE, "", objectMapper.writeValueAsString(update));
+        } catch (Exception e) {
+            log.warn("Unable to publish presence update: {}", e.getMessage());
+        }
+    }
+
+    private Map<String, Set<String>> stripe(String userId) {
+        return localSessions[(userId.hashCode() & 0x7fffffff) % STRIPES];
+    }
+}
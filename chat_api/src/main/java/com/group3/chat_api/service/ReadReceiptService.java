@@ -0,0 +1,180 @@
+package com.group3.chat_api.service;
+
+import com.group3.chat_api.model.ChatMessage;
+import com.group3.chat_api.model.MessageType;
+import com.group3.chat_api.model.ReadMark;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.cassandra.core.CassandraOperations;
+import org.springframework.data.cassandra.core.InsertOptions;
+import org.springframework.data.cassandra.core.query.Criteria;
+import org.springframework.data.cassandra.core.query.Query;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Collapses read receipts into one high-water mark per (conversation, user). Receipts only
+// raise the pending mark in memory; every flush-ms the flusher writes each changed mark once,
+// reconciles that member's unread counter and tells the conversation how far they have read.
+// A client scrolling through a hundred messages therefore costs one write per flush window.
+// Pending marks are lost if the node dies before a flush; the next receipt restores them.
+// The seq comes from the client, so the flusher clamps it to the conversation's current sequence
+// before writing; otherwise one inflated receipt would mark every future message as read.
+@Slf4j
+@Service
+public class ReadReceiptService {
+    private static final int WRITTEN_CACHE_SIZE = 10_000;
+
+    private final CassandraOperations cassandraOperations;
+    private final UnreadCounterService unreadCounterService;
+    private final ConversationExpiryService conversationExpiryService;
+    private final ChatSequenceService chatSequenceService;
+    private final SimpMessageSendingOperations messagingTemplate;
+    private final long flushMs;
+    private final Map<String, PendingMark> pending = new ConcurrentHashMap<>();
+    // Last mark written per key, so repeated receipts for an already-flushed seq cost nothing
+    private final Map<String, WrittenMark> written = Collections.synchronizedMap(
+            new LinkedHashMap<String, WrittenMark>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, WrittenMark> eldest) {
+                    return size() > WRITTEN_CACHE_SIZE;
+                }
+            });
+    private final Counter receivedCounter;
+    private final Counter flushedCounter;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "read-receipt-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private record PendingMark(UUID conversationId, String userId, long seq) {
+    }
+
+    // Only trusted until the conversation expires: a rematched pair gets the same id back with
+    // sequence numbers starting over
+    private record WrittenMark(long seq, LocalDateTime expiresAt) {
+        boolean covers(long other) {
+            return seq >= other && (expiresAt == null || expiresAt.isAfter(LocalDateTime.now()));
+        }
+    }
+
+    public ReadReceiptService(CassandraOperations cassandraOperations,
+                              UnreadCounterService unreadCounterService,
+                              ConversationExpiryService conversationExpiryService,
+                              ChatSequenceService chatSequenceService,
+                              SimpMessageSendingOperations messagingTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${chat.read.flush-ms:1000}") long flushMs) {
+        this.cassandraOperations = cassandraOperations;
+        this.unreadCounterService = unreadCounterService;
+        this.conversationExpiryService = conversationExpiryService;
+        this.chatSequenceService = chatSequenceService;
+        this.messagingTemplate = messagingTemplate;
+        this.flushMs = flushMs;
+        this.receivedCounter = meterRegistry.counter("chat.read.received");
+        this.flushedCounter = meterRegistry.counter("chat.read.flushed");
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::flush, flushMs, flushMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+        flush();
+    }
+
+    public void onRead(UUID conversationId, String userId, Long seq) {
+        if (conversationId == null || userId == null || seq == null || seq < 1) {
+            return;
+        }
+        receivedCounter.increment();
+        String key = conversationId + "|" + userId;
+        WrittenMark flushed = written.get(key);
+        if (flushed != null && flushed.covers(seq)) {
+            return;
+        }
+        pending.merge(key, new PendingMark(conversationId, userId, seq),
+                (current, next) -> next.seq() > current.seq() ? next : current);
+    }
+
+    private void flush() {
+        for (String key : pending.keySet()) {
+            PendingMark mark = pending.remove(key);
+            if (mark == null) {
+                continue;
+            }
+            try {
+                write(key, mark);
+            } catch (Exception e) {
+                // Put it back unless a newer receipt has already replaced it
+                pending.merge(key, mark, (current, failed) -> current.seq() >= failed.seq() ? current : failed);
+                log.warn("Unable to flush read mark for conversation {}: {}", mark.conversationId(), e.getMessage());
+            }
+        }
+    }
+
+    private void write(String key, PendingMark requested) {
+        WrittenMark flushed = written.get(key);
+        if (flushed != null && flushed.covers(requested.seq())) {
+            return;
+        }
+        long current = chatSequenceService.current(requested.conversationId());
+        if (current < 1) {
+            return;
+        }
+        PendingMark mark = requested.seq() > current
+                ? new PendingMark(requested.conversationId(), requested.userId(), current)
+                : requested;
+        if (flushed != null && flushed.covers(mark.seq())) {
+            return;
+        }
+        LocalDateTime expiresAt = conversationExpiryService.expiresAt(mark.conversationId());
+        // Read-then-max rather than the seq as write timestamp: a rematched pair reuses the
+        // conversation id, and the sweeper's partition delete would shadow seq-stamped writes.
+        // Marks are only written from this single flusher thread, so the read can't race itself.
+        ReadMark stored = cassandraOperations.selectOne(Query.query(
+                Criteria.where("conversationid").is(mark.conversationId()),
+                Criteria.where("userid").is(mark.userId())), ReadMark.class);
+        if (stored != null && stored.getLastReadSeq() != null && stored.getLastReadSeq() >= mark.seq()) {
+            written.put(key, new WrittenMark(stored.getLastReadSeq(), expiresAt));
+            return;
+        }
+        InsertOptions options = InsertOptions.builder()
+                .ttl(conversationExpiryService.ttlUntil(expiresAt))
+                .build();
+        cassandraOperations.insert(ReadMark.builder()
+                .conversationId(mark.conversationId())
+                .userId(mark.userId())
+                .lastReadSeq(mark.seq())
+                .readAt(LocalDateTime.now())
+                .build(), options);
+        unreadCounterService.reconcile(mark.userId(), mark.conversationId(), mark.seq());
+        written.put(key, new WrittenMark(mark.seq(), expiresAt));
+        flushedCounter.increment();
+
+        messagingTemplate.convertAndSend("/topic/" + mark.conversationId(), ChatMessage.builder()
+                .type(MessageType.READ)
+                .conversationId(mark.conversationId().toString())
+                .sender(mark.userId())
+                .seq(mark.seq())
+                .build());
+    }
+}
@@ -0,0 +1,196 @@
+package com.group3.chat_api.service;
+
+import com.group3.chat_api.model.ChatMessage;
+import com.group3.chat_api.model.MessageType;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Turns per-keystroke typing events into at most one update per (conversation, user) per
+// window-ms. A change is forwarded immediately when the window is open; otherwise only the
+// latest state is held and forwarded when the window closes. Someone who stops sending typing
+// events is shown as stopped after idle-ms. Deadlines live on a hashed timer wheel so thousands
+// of typists cost one ticking thread rather than one scheduled task each.
+@Slf4j
+@Service
+public class TypingService {
+    private static final int WHEEL_SLOTS = 512;
+
+    private final SimpMessageSendingOperations messagingTemplate;
+    private final long windowMs;
+    private final long idleMs;
+    private final long tickMs;
+    private final Map<String, TypingState> states = new ConcurrentHashMap<>();
+    @SuppressWarnings("unchecked")
+    private final Set<String>[] wheel = new Set[WHEEL_SLOTS];
+    private final Counter receivedCounter;
+    private final Counter forwardedCounter;
+    private final Counter suppressedCounter;
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "typing-wheel");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile long lastTick;
+
+    private static final class TypingState {
+        private final String conversationId;
+        private final String userId;
+        private boolean shown;
+        private Boolean pending;
+        private long windowEndsMs;
+        private long lastTypingMs;
+        private boolean removed;
+
+        private TypingState(String conversationId, String userId) {
+            this.conversationId = conversationId;
+            this.userId = userId;
+        }
+    }
+
+    public TypingService(SimpMessageSendingOperations messagingTemplate,
+                         MeterRegistry meterRegistry,
+                         @Value("${chat.typing.window-ms:1000}") long windowMs,
+                         @Value("${chat.typing.idle-ms:5000}") long idleMs,
+                         @Value("${chat.typing.tick-ms:50}") long tickMs) {
+        this.messagingTemplate = messagingTemplate;
+        this.windowMs = windowMs;
+        this.idleMs = idleMs;
+        this.tickMs = tickMs;
+        for (int i = 0; i < WHEEL_SLOTS; i++) {
+            wheel[i] = ConcurrentHashMap.newKeySet();
+        }
+        this.receivedCounter = meterRegistry.counter("chat.typing.received");
+        this.forwardedCounter = meterRegistry.counter("chat.typing.forwarded");
+        this.suppressedCounter = meterRegistry.counter("chat.typing.suppressed");
+    }
+
+    @PostConstruct
+    public void start() {
+        lastTick = System.currentTimeMillis() / tickMs;
+        ticker.scheduleAtFixedRate(this::advance, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        ticker.shutdownNow();
+    }
+
+    public void onTyping(String conversationId, String userId, boolean typing) {
+        if (conversationId == null || userId == null) {
+            return;
+        }
+        receivedCounter.increment();
+        String key = conversationId + "|" + userId;
+        while (true) {
+            TypingState state = states.computeIfAbsent(key, k -> new TypingState(conversationId, userId));
+            synchronized (state) {
+                if (state.removed) {
+                    // The wheel dropped this state between the lookup and the lock; start a fresh one
+                    continue;
+                }
+                long now = System.currentTimeMillis();
+                if (typing) {
+                    state.lastTypingMs = now;
+                }
+                if (typing != state.shown && now >= state.windowEndsMs) {
+                    forward(state, typing, now);
+                } else {
+                    suppressedCounter.increment();
+                    state.pending = typing == state.shown ? null : typing;
+                }
+                reschedule(key, state);
+                return;
+            }
+        }
+    }
+
+    private void advance() {
+        try {
+            long now = System.currentTimeMillis();
+            long currentTick = now / tickMs;
+            // Catch up on any ticks missed while the thread was descheduled, one lap at most
+            for (long tick = Math.max(lastTick + 1, currentTick - WHEEL_SLOTS + 1); tick <= currentTick; tick++) {
+                Set<String> slot = wheel[(int) (tick % WHEEL_SLOTS)];
+                List<String> due = new ArrayList<>(slot);
+                slot.removeAll(due);
+                for (String key : due) {
+                    expire(key, now);
+                }
+            }
+            lastTick = currentTick;
+        } catch (Exception e) {
+            log.error("Typing wheel tick failed: ", e);
+        }
+    }
+
+    private void expire(String key, long now) {
+        TypingState state = states.get(key);
+        if (state == null) {
+            return;
+        }
+        synchronized (state) {
+            if (state.removed) {
+                return;
+            }
+            if (state.shown && state.pending == null && now >= state.lastTypingMs + idleMs) {
+                state.pending = false;
+            }
+            if (state.pending != null && now >= state.windowEndsMs) {
+                forward(state, state.pending, now);
+            }
+            reschedule(key, state);
+        }
+    }
+
+    // Caller holds the state's lock
+    private void reschedule(String key, TypingState state) {
+        long deadline = Long.MAX_VALUE;
+        if (state.pending != null) {
+            deadline = state.windowEndsMs;
+        }
+        if (state.shown) {
+            deadline = Math.min(deadline, state.lastTypingMs + idleMs);
+        }
+        if (deadline == Long.MAX_VALUE) {
+            state.removed = true;
+            states.remove(key, state);
+            return;
+        }
+        // Deadlines past the current lap land in an earlier slot and are simply checked again
+        long tick = Math.max(deadline / tickMs, lastTick + 1);
+        wheel[(int) (tick % WHEEL_SLOTS)].add(key);
+    }
+
+    // Caller holds the state's lock
+    private void forward(TypingState state, boolean typing, long now) {
+        state.shown = typing;
+        state.pending = null;
+        state.windowEndsMs = now + windowMs;
+        forwardedCounter.increment();
+        try {
+            messagingTemplate.convertAndSend("/topic/" + state.conversationId, ChatMessage.builder()
+                    .type(typing ? MessageType.TYPING : MessageType.STOP_TYPING)
+                    .conversationId(state.conversationId)
+                    .sender(state.userId)
+                    .build());
+        } catch (Exception e) {
+            log.warn("Unable to forward typing update for {}: {}", state.conversationId, e.getMessage());
+        }
+    }
+}
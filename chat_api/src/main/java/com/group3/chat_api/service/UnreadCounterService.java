@@ -0,0 +1,80 @@
+package com.group3.chat_api.service;
+
+import com.group3.chat_api.model.SequencedChat;
+import com.group3.chat_api.model.UnreadCounter;
+import com.group3.chat_api.repository.ReactiveUnreadCounterRepository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.cassandra.core.CassandraOperations;
+import org.springframework.data.cassandra.core.query.Criteria;
+import org.springframework.data.cassandra.core.query.Query;
+import org.springframework.data.cassandra.core.query.Update;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.UUID;
+
+// Keeps user_unread in step with chats and read receipts. New chats bump the counter for every
+// member but the sender; a read receipt recounts what is still unread past the member's mark and
+// corrects the counter by the difference. Counter writes aren't idempotent, so a retried flush
+// can over-count until the member's next receipt reconciles it.
+@Slf4j
+@Service
+public class UnreadCounterService {
+    private final CassandraOperations cassandraOperations;
+    private final ReactiveUnreadCounterRepository reactiveUnreadCounterRepository;
+    private final int maxRecount;
+
+    public UnreadCounterService(CassandraOperations cassandraOperations,
+                                ReactiveUnreadCounterRepository reactiveUnreadCounterRepository,
+                                @Value("${chat.read.max-recount:1000}") int maxRecount) {
+        this.cassandraOperations = cassandraOperations;
+        this.reactiveUnreadCounterRepository = reactiveUnreadCounterRepository;
+        this.maxRecount = maxRecount;
+    }
+
+    public void increment(String userId, UUID conversationId, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        cassandraOperations.update(key(userId, conversationId), Update.empty().increment("unread", delta),
+                UnreadCounter.class);
+    }
+
+    // Counts chats from others after lastReadSeq, at most max-recount of them, and moves the counter there
+    public void reconcile(String userId, UUID conversationId, long lastReadSeq) {
+        long remaining = cassandraOperations.select(Query.query(
+                        Criteria.where("conversationid").is(conversationId),
+                        Criteria.where("seq").gt(lastReadSeq)).limit(maxRecount), SequencedChat.class)
+                .stream()
+                .filter(chat -> !userId.equals(chat.getSenderId()))
+                .count();
+        UnreadCounter counter = cassandraOperations.selectOne(key(userId, conversationId), UnreadCounter.class);
+        long counted = counter != null && counter.getUnread() != null ? counter.getUnread() : 0;
+        increment(userId, conversationId, remaining - counted);
+    }
+
+    public Mono<Map<UUID, Long>> getUnread(String userId) {
+        return reactiveUnreadCounterRepository.findByUserId(userId)
+                .collectMap(UnreadCounter::getConversationId,
+                        counter -> counter.getUnread() != null ? Math.max(0, counter.getUnread()) : 0L)
+                .doOnError(e -> log.error("Error retrieving unread counts: ", e));
+    }
+
+    // Counters are zeroed rather than deleted: Cassandra can't reliably increment a counter again
+    // after deleting it, and a rematched pair gets the same conversation id back
+    public void reset(String userId, UUID conversationId) {
+        UnreadCounter counter = cassandraOperations.selectOne(key(userId, conversationId), UnreadCounter.class);
+        if (counter != null && counter.getUnread() != null && counter.getUnread() != 0) {
+            increment(userId, conversationId, -counter.getUnread());
+        }
+    }
+
+    private static Query key(String userId, UUID conversationId) {
+        return Query.query(
+                Criteria.where("userid").is(userId),
+                Criteria.where("conversationid").is(conversationId));
+    }
+}
@@ -0,0 +1,234 @@
+package com.group3.chat_api.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Two relays stand in for two chat_api nodes sharing one broker: a broadcast published on
+// node A must reach a subscriber connected to node B.
+class BrokerRelayFanOutTests {
+
+	private static final String DESTINATION = "/topic/conversation-1";
+
+	private StompBrokerStandIn broker;
+	private StompBrokerRelayMessageHandler nodeA;
+	private StompBrokerRelayMessageHandler nodeB;
+	private final BlockingQueue<Message<?>> nodeBOutbound = new LinkedBlockingQueue<>();
+
+	@BeforeEach
+	void setUp() throws Exception {
+		broker = new StompBrokerStandIn();
+		nodeA = startNode(new ExecutorSubscribableChannel());
+		ExecutorSubscribableChannel outboundB = new ExecutorSubscribableChannel();
+		outboundB.subscribe(nodeBOutbound::add);
+		nodeB = startNode(outboundB);
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		nodeA.stop();
+		nodeB.stop();
+		broker.close();
+	}
+
+	@Test
+	void broadcastOnOneNodeReachesSubscriberOnAnother() throws Exception {
+		nodeB.handleMessage(clientFrame(StompCommand.CONNECT, "session-b", null));
+		assertEquals(StompCommand.CONNECTED, nextCommand());
+
+		nodeB.handleMessage(clientFrame(StompCommand.SUBSCRIBE, "session-b", DESTINATION));
+		assertTrue(broker.awaitSubscriptions(1));
+
+		SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+		headers.setDestination(DESTINATION);
+		byte[] payload = "{\"content\":\"hello from node A\"}".getBytes(StandardCharsets.UTF_8);
+		nodeA.handleMessage(MessageBuilder.createMessage(payload, headers.getMessageHeaders()));
+
+		Message<?> delivered = nodeBOutbound.poll(5, TimeUnit.SECONDS);
+		assertNotNull(delivered, "node B never received the broadcast");
+		StompHeaderAccessor accessor = StompHeaderAccessor.wrap(delivered);
+		assertEquals(StompCommand.MESSAGE, accessor.getCommand());
+		assertEquals(DESTINATION, accessor.getDestination());
+		assertEquals(new String(payload, StandardCharsets.UTF_8),
+				new String((byte[]) delivered.getPayload(), StandardCharsets.UTF_8));
+	}
+
+	private StompBrokerRelayMessageHandler startNode(ExecutorSubscribableChannel outbound) throws InterruptedException {
+		StompBrokerRelayMessageHandler relay = new StompBrokerRelayMessageHandler(
+				new ExecutorSubscribableChannel(), outbound, new ExecutorSubscribableChannel(), List.of("/topic"));
+		relay.setRelayHost("127.0.0.1");
+		relay.setRelayPort(broker.getPort());
+		relay.setSystemHeartbeatSendInterval(0);
+		relay.setSystemHeartbeatReceiveInterval(0);
+		relay.start();
+
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!relay.isBrokerAvailable() && System.nanoTime() < deadline) {
+			Thread.sleep(20);
+		}
+		assertTrue(relay.isBrokerAvailable(), "relay never connected to the stand-in broker");
+		return relay;
+	}
+
+	private StompCommand nextCommand() throws InterruptedException {
+		Message<?> message = nodeBOutbound.poll(5, TimeUnit.SECONDS);
+		assertNotNull(message);
+		return StompHeaderAccessor.wrap(message).getCommand();
+	}
+
+	private static Message<byte[]> clientFrame(StompCommand command, String sessionId, String destination) {
+		StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+		accessor.setSessionId(sessionId);
+		if (command == StompCommand.CONNECT) {
+			accessor.setAcceptVersion("1.2");
+			accessor.setHeartbeat(0, 0);
+		}
+		if (destination != null) {
+			accessor.setDestination(destination);
+			accessor.setSubscriptionId("sub-0");
+		}
+		return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+	}
+
+	// Just enough of a STOMP 1.2 broker to route SEND frames to matching SUBSCRIBE frames
+	// across connections, standing in for RabbitMQ's STOMP plugin.
+	private static class StompBrokerStandIn implements AutoCloseable {
+		private final ServerSocket serverSocket;
+		private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+		private final AtomicInteger messageIds = new AtomicInteger();
+		private final CountDownLatch firstSubscription = new CountDownLatch(1);
+
+		private record Subscription(OutputStream out, String id, String destination) {
+		}
+
+		StompBrokerStandIn() throws IOException {
+			serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+			Thread acceptor = new Thread(this::accept, "stomp-stand-in");
+			acceptor.setDaemon(true);
+			acceptor.start();
+		}
+
+		int getPort() {
+			return serverSocket.getLocalPort();
+		}
+
+		boolean awaitSubscriptions(int count) throws InterruptedException {
+			return firstSubscription.await(5, TimeUnit.SECONDS) && subscriptions.size() >= count;
+		}
+
+		private void accept() {
+			while (!serverSocket.isClosed()) {
+				try {
+					Socket socket = serverSocket.accept();
+					Thread reader = new Thread(() -> serve(socket), "stomp-stand-in-conn");
+					reader.setDaemon(true);
+					reader.start();
+				} catch (IOException e) {
+					return;
+				}
+			}
+		}
+
+		private void serve(Socket socket) {
+			try (socket; InputStream in = socket.getInputStream(); OutputStream out = socket.getOutputStream()) {
+				String frame;
+				while ((frame = readFrame(in)) != null) {
+					handle(frame, out);
+				}
+			} catch (IOException e) {
+				// connection closed by the relay
+			}
+		}
+
+		private void handle(String frame, OutputStream out) throws IOException {
+			int headerEnd = frame.indexOf("\n\n");
+			String[] lines = frame.substring(0, headerEnd).split("\n");
+			String body = frame.substring(headerEnd + 2);
+			Map<String, String> headers = new HashMap<>();
+			for (int i = 1; i < lines.length; i++) {
+				int colon = lines[i].indexOf(':');
+				headers.putIfAbsent(lines[i].substring(0, colon), lines[i].substring(colon + 1));
+			}
+
+			switch (lines[0]) {
+				case "CONNECT", "STOMP" -> write(out, "CONNECTED\nversion:1.2\nheart-beat:0,0\n\n");
+				case "SUBSCRIBE" -> {
+					subscriptions.add(new Subscription(out, headers.get("id"), headers.get("destination")));
+					firstSubscription.countDown();
+				}
+				case "SEND" -> {
+					byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+					for (Subscription subscription : subscriptions) {
+						if (subscription.destination().equals(headers.get("destination"))) {
+							write(subscription.out(), "MESSAGE\nsubscription:" + subscription.id()
+									+ "\nmessage-id:" + messageIds.incrementAndGet()
+									+ "\ndestination:" + subscription.destination()
+									+ "\ncontent-length:" + bytes.length + "\n\n" + body);
+						}
+					}
+				}
+				default -> {
+				}
+			}
+		}
+
+		private static void write(OutputStream out, String frame) throws IOException {
+			synchronized (out) {
+				out.write(frame.getBytes(StandardCharsets.UTF_8));
+				out.write(0);
+				out.flush();
+			}
+		}
+
+		// Reads up to the NUL terminator, skipping heart-beat newlines between frames
+		private static String readFrame(InputStream in) throws IOException {
+			ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+			int b;
+			while ((b = in.read()) != -1) {
+				if (b == 0) {
+					return buffer.toString(StandardCharsets.UTF_8);
+				}
+				if (buffer.size() == 0 && (b == '\n' || b == '\r')) {
+					continue;
+				}
+				buffer.write(b);
+			}
+			return null;
+		}
+
+		@Override
+		public void close() throws IOException {
+			serverSocket.close();
+		}
+	}
+}
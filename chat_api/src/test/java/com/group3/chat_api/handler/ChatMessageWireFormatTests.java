@@ -0,0 +1,139 @@
+package com.group3.chat_api.handler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.group3.chat_api.model.ChatMessage;
+import com.group3.chat_api.model.MessageType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChatMessageWireFormatTests {
+
+	private final ObjectMapper jsonMapper = new ObjectMapper();
+	private final CBORMapper cborMapper = new CBORMapper();
+
+	// Keeps decoded results observable so the JIT can't drop the benchmark loop
+	private static volatile Object sink;
+
+	@Test
+	void optedInSessionsReceiveSharedCborPayloads() throws Exception {
+		WireFormatChannelInterceptor interceptor = new WireFormatChannelInterceptor(jsonMapper);
+		interceptor.preSend(connect("mobile", true), null);
+		interceptor.preSend(connect("browser", false), null);
+
+		byte[] json = jsonMapper.writeValueAsBytes(sampleMessage());
+		Message<?> mobileFirst = interceptor.preSend(broadcast("mobile", json), null);
+		Message<?> mobileSecond = interceptor.preSend(broadcast("mobile", json), null);
+		Message<?> browser = interceptor.preSend(broadcast("browser", json), null);
+
+		assertEquals(WireFormatChannelInterceptor.CBOR_FRAME,
+				SimpMessageHeaderAccessor.wrap(mobileFirst).getContentType());
+		assertSame(mobileFirst.getPayload(), mobileSecond.getPayload());
+		assertArrayEquals(json, (byte[]) browser.getPayload());
+
+		ChatMessage decoded = cborMapper.readValue((byte[]) mobileFirst.getPayload(), ChatMessage.class);
+		assertEquals(sampleMessage().getContent(), decoded.getContent());
+		assertEquals(sampleMessage().getSeq(), decoded.getSeq());
+	}
+
+	@Test
+	void cborIsSmallerThanJson() throws Exception {
+		ChatMessage message = sampleMessage();
+		assertTrue(cborMapper.writeValueAsBytes(message).length < jsonMapper.writeValueAsBytes(message).length);
+	}
+
+	// Run with CHAT_BENCHMARK=true. Prints payload sizes raw and deflated (what permessage-deflate
+	// would put on the wire for a single message) and encode/decode times for both formats.
+	@Test
+	@EnabledIfEnvironmentVariable(named = "CHAT_BENCHMARK", matches = "true")
+	void benchmarkWireFormats() throws Exception {
+		ChatMessage message = sampleMessage();
+		byte[] json = jsonMapper.writeValueAsBytes(message);
+		byte[] cbor = cborMapper.writeValueAsBytes(message);
+		System.out.printf("json %d bytes (%d deflated), cbor %d bytes (%d deflated)%n",
+				json.length, deflatedSize(json), cbor.length, deflatedSize(cbor));
+
+		int iterations = 500_000;
+		for (int round = 0; round < 3; round++) {
+			System.out.printf("round %d: json encode %d ns, decode %d ns; cbor encode %d ns, decode %d ns%n", round,
+					encodeNanos(jsonMapper, message, iterations), decodeNanos(jsonMapper, json, iterations),
+					encodeNanos(cborMapper, message, iterations), decodeNanos(cborMapper, cbor, iterations));
+		}
+	}
+
+	private long encodeNanos(ObjectMapper mapper, ChatMessage message, int iterations) throws Exception {
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			sink = mapper.writeValueAsBytes(message);
+		}
+		return (System.nanoTime() - start) / iterations;
+	}
+
+	private long decodeNanos(ObjectMapper mapper, byte[] payload, int iterations) throws Exception {
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			sink = mapper.readValue(payload, ChatMessage.class);
+		}
+		return (System.nanoTime() - start) / iterations;
+	}
+
+	private static int deflatedSize(byte[] payload) {
+		Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+		deflater.setInput(payload);
+		deflater.finish();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[256];
+		while (!deflater.finished()) {
+			out.write(buffer, 0, deflater.deflate(buffer));
+		}
+		deflater.end();
+		return out.size();
+	}
+
+	private static ChatMessage sampleMessage() {
+		return ChatMessage.builder()
+				.messageId(UUID.fromString("1d1c2f6e-1c1a-11ef-9262-0242ac120002"))
+				.type(MessageType.CHAT)
+				.conversationId("6f1e1a52-7c43-4d7b-9a0e-2b5f3c1d8e90")
+				.content("are we still on for the tier list tonight?")
+				.sender("user-4821")
+				.seq(42L)
+				.build();
+	}
+
+	private static Message<byte[]> connect(String sessionId, boolean binaryFrames) {
+		StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+		accessor.setSessionId(sessionId);
+		accessor.setNativeHeader(WireFormatChannelInterceptor.ACCEPT_CONTENT_HEADER, "application/cbor, application/json");
+		Map<String, Object> attributes = new HashMap<>();
+		attributes.put(WireFormatChannelInterceptor.BINARY_FRAMES_ATTRIBUTE, binaryFrames);
+		accessor.setSessionAttributes(attributes);
+		return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+	}
+
+	private static Message<byte[]> broadcast(String sessionId, byte[] json) {
+		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+		accessor.setSessionId(sessionId);
+		accessor.setDestination("/topic/public");
+		accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+		return MessageBuilder.createMessage(json, accessor.getMessageHeaders());
+	}
+}
@@ -0,0 +1,110 @@
+package com.group3.chat_api.handler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompDecoder;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SharedFrameStompEncoderTests {
+
+	private static final String DESTINATION = "/topic/public";
+	private static final byte[] PAYLOAD = ("{\"messageId\":\"1d1c2f6e-1c1a-11ef-9262-0242ac120002\",\"type\":\"CHAT\","
+			+ "\"conversationId\":\"public\",\"content\":\"hello: everyone\",\"sender\":\"alice\",\"seq\":42}")
+			.getBytes(StandardCharsets.UTF_8);
+
+	// Keeps the encoded lengths observable so the JIT can't drop the benchmark loop
+	private static volatile long sink;
+
+	private final StompDecoder decoder = new StompDecoder();
+
+	@Test
+	void framesDecodeTheSameAsTheStockEncoder() {
+		StompEncoder stock = new StompEncoder();
+		SharedFrameStompEncoder shared = new SharedFrameStompEncoder();
+
+		for (int session = 0; session < 3; session++) {
+			Map<String, Object> headers = broadcastHeaders(session);
+			StompHeaderAccessor expected = decode(stock.encode(headers, PAYLOAD));
+			StompHeaderAccessor actual = decode(shared.encode(headers, PAYLOAD));
+
+			assertEquals(expected.getCommand(), actual.getCommand());
+			assertEquals(expected.toNativeHeaderMap(), actual.toNativeHeaderMap());
+		}
+	}
+
+	@Test
+	void sessionHeadersAreNotShared() {
+		SharedFrameStompEncoder shared = new SharedFrameStompEncoder();
+
+		StompHeaderAccessor first = decode(shared.encode(broadcastHeaders(1), PAYLOAD));
+		StompHeaderAccessor second = decode(shared.encode(broadcastHeaders(2), PAYLOAD));
+
+		assertEquals("sub-1", first.getSubscriptionId());
+		assertEquals("sub-2", second.getSubscriptionId());
+		assertEquals("session-2-0", second.getMessageId());
+	}
+
+	// Run with CHAT_BENCHMARK=true. One broadcast to many sessions, encoded per session the way
+	// StompSubProtocolHandler does, with the stock encoder and with the shared-frame encoder.
+	@Test
+	@EnabledIfEnvironmentVariable(named = "CHAT_BENCHMARK", matches = "true")
+	void benchmarkBroadcastEncoding() {
+		int sessions = 5_000;
+		int broadcasts = 200;
+		List<Map<String, Object>> headers = IntStream.range(0, sessions)
+				.mapToObj(SharedFrameStompEncoderTests::broadcastHeaders)
+				.toList();
+
+		for (int round = 0; round < 3; round++) {
+			long stock = run(new StompEncoder(), headers, broadcasts);
+			long shared = run(new SharedFrameStompEncoder(), headers, broadcasts);
+			long frames = (long) sessions * broadcasts;
+			System.out.printf("round %d: stock %,d frames/s, shared %,d frames/s%n", round,
+					frames * 1_000_000_000L / stock, frames * 1_000_000_000L / shared);
+		}
+	}
+
+	private static long run(StompEncoder encoder, List<Map<String, Object>> headers, int broadcasts) {
+		long checksum = 0;
+		long start = System.nanoTime();
+		for (int i = 0; i < broadcasts; i++) {
+			// A fresh array per broadcast, as the broker converts each message once
+			byte[] payload = PAYLOAD.clone();
+			for (Map<String, Object> sessionHeaders : headers) {
+				checksum += encoder.encode(sessionHeaders, payload).length;
+			}
+		}
+		long elapsed = System.nanoTime() - start;
+		sink = checksum;
+		return elapsed;
+	}
+
+	private static Map<String, Object> broadcastHeaders(int session) {
+		StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.MESSAGE);
+		accessor.setDestination(DESTINATION);
+		accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+		accessor.setSubscriptionId("sub-" + session);
+		accessor.setMessageId("session-" + session + "-0");
+		return accessor.getMessageHeaders();
+	}
+
+	private StompHeaderAccessor decode(byte[] frame) {
+		List<Message<byte[]>> messages = decoder.decode(ByteBuffer.wrap(frame));
+		assertEquals(1, messages.size());
+		assertArrayEquals(PAYLOAD, messages.get(0).getPayload());
+		return StompHeaderAccessor.wrap(messages.get(0));
+	}
+}
@@ -165,21 +165,22 @@ export default function Browse() {
   const fetchTemplates = async () => {
     try {
       setLoading(true);
-      // Use the new endpoint we created
-      const response = await axios.get(`${TIERLIST_API_URL}/api/templates/all`);
-      const allTemplates = response.data;
+      // The server sorts by views, so one bounded request covers the carousel and tag sections
+      const response = await axios.get(`${TIERLIST_API_URL}/api/templates/popular`, {
+        params: { limit: 100 },
+      });
+      const popularTemplates = response.data;
 
-      // Safety check - ensure allTemplates is an array
-      if (!Array.isArray(allTemplates)) {
-        console.error('Expected array of templates but received:', allTemplates);
+      // Safety check - ensure popularTemplates is an array
+      if (!Array.isArray(popularTemplates)) {
+        console.error('Expected array of templates but received:', popularTemplates);
         setError('Invalid data format received from server');
         setLoading(false);
         return;
       }
 
-      // Sort by view count and get top 5
-      const sortedByViews = [...allTemplates].sort((a, b) => b.viewCount - a.viewCount);
-      const top5 = sortedByViews.slice(0, 5);
+      // Already most viewed first
+      const top5 = popularTemplates.slice(0, 5);
 
       if (top5.length === 0) {
         setTopTemplates([]);
@@ -208,9 +209,9 @@ export default function Browse() {
       // Start preloading images for the carousel
       preloadCarouselImages(topTemplatesWithImages);
 
-      // Organize by tags
+      // Organize the popular templates by tags
       const byTags: TemplatesByTag = {};
-      allTemplates.forEach((template: Template) => {
+      popularTemplates.forEach((template: Template) => {
         if (template.tags && template.tags.length > 0) {
           template.tags.forEach((tag) => {
             if (!tag) return; // Skip null or empty tags
@@ -92,17 +92,25 @@ export default function MyTiers() {
         throw new Error('User ID not available');
       }
 
-      const response = await axios.get(`${TIERLIST_API_URL}/api/templates/user`, {
-        headers: {
-          Authorization: `Bearer ${token}`,
-          'X-User-ID': user.id,
-          'Content-Type': 'application/json',
-          Accept: 'application/json',
-        },
-      });
+      // The endpoint is paginated; follow the X-Next-Cursor header until the last page
+      const userTemplates: Template[] = [];
+      let after: string | undefined;
+      do {
+        const response = await axios.get(`${TIERLIST_API_URL}/api/templates/user`, {
+          params: { after, limit: 200 },
+          headers: {
+            Authorization: `Bearer ${token}`,
+            'X-User-ID': user.id,
+            'Content-Type': 'application/json',
+            Accept: 'application/json',
+          },
+        });
+        userTemplates.push(...response.data);
+        after = response.headers['x-next-cursor'];
+      } while (after);
 
-      console.log(`Successfully fetched ${response.data.length} templates`);
-      setTemplates(response.data);
+      console.log(`Successfully fetched ${userTemplates.length} templates`);
+      setTemplates(userTemplates);
     } catch (error) {
       console.error('Error fetching user templates:', error);
       if (axios.isAxiosError(error)) {
@@ -0,0 +1,76 @@
+package group_3.tierlistservice.config;
+
+import group_3.tierlistservice.model.TemplateInvalidation;
+import group_3.tierlistservice.model.TierlistCompletion;
+import group_3.tierlistservice.model.TierlistTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+
+import java.time.Duration;
+
+/**
+ * Creates the indexes the services rely on.
+ *
+ * Automatic index creation is not on, so the @Indexed and @CompoundIndex annotations on the
+ * models only document the indexes; they are built here at startup instead. Names match what
+ * the annotations would have produced, so an index that already exists is left as it is.
+ */
+@Configuration
+public class MongoIndexConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(MongoIndexConfig.class);
+
+    @Bean
+    public CommandLineRunner ensureIndexes(MongoTemplate mongoTemplate) {
+        return args -> {
+            // Invalidation notices expire an hour after they are written
+            ensureIndex(mongoTemplate, TemplateInvalidation.class, new Index()
+                    .named("createdAt")
+                    .on("createdAt", Sort.Direction.ASC)
+                    .expire(Duration.ofHours(1)));
+
+            // Keyset pages filter on the field and walk _id in order
+            ensureIndex(mongoTemplate, TierlistTemplate.class, new Index()
+                    .named("user_id_page_idx")
+                    .on("userId", Sort.Direction.ASC)
+                    .on("_id", Sort.Direction.ASC));
+            ensureIndex(mongoTemplate, TierlistTemplate.class, new Index()
+                    .named("tags_id_page_idx")
+                    .on("tags", Sort.Direction.ASC)
+                    .on("_id", Sort.Direction.ASC));
+            // Most viewed first for the popular list
+            ensureIndex(mongoTemplate, TierlistTemplate.class, new Index()
+                    .named("view_count_idx")
+                    .on("viewCount", Sort.Direction.DESC)
+                    .on("_id", Sort.Direction.ASC));
+
+            // Completion upserts match on (userId, templateId)
+            ensureIndex(mongoTemplate, TierlistCompletion.class, new Index()
+                    .named("user_template_idx")
+                    .on("userId", Sort.Direction.ASC)
+                    .on("templateId", Sort.Direction.ASC));
+            // Loading a daily's completions, and the refresh's completedAt > since delta
+            ensureIndex(mongoTemplate, TierlistCompletion.class, new Index()
+                    .named("template_completed_idx")
+                    .on("templateId", Sort.Direction.ASC)
+                    .on("completedAt", Sort.Direction.ASC));
+        };
+    }
+
+    private void ensureIndex(MongoTemplate mongoTemplate, Class<?> entityClass, IndexDefinition index) {
+        try {
+            String name = mongoTemplate.indexOps(entityClass).ensureIndex(index);
+            logger.info("Ensured index {} on {}", name, mongoTemplate.getCollectionName(entityClass));
+        } catch (Exception e) {
+            logger.error("Failed to create index on {}: {}",
+                    mongoTemplate.getCollectionName(entityClass), e.getMessage());
+        }
+    }
+}
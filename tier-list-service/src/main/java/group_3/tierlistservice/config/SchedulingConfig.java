@@ -0,0 +1,12 @@
+package group_3.tierlistservice.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables the @Scheduled background jobs (cache invalidation polling and the like).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
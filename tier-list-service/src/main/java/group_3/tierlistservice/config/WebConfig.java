@@ -39,7 +39,7 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowedOrigins(allowedOrigins)
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
                 .allowedHeaders("Authorization", "Content-Type", "x-auth-token", "X-User-ID", "Accept", "Origin")
-                .exposedHeaders("x-auth-token")
+                .exposedHeaders("x-auth-token", "X-Next-Cursor")
                 .allowCredentials(true)
                 .maxAge(3600);
 
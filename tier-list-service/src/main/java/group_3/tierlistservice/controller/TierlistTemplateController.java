@@ -1,24 +1,29 @@
 package group_3.tierlistservice.controller;
 
+import group_3.tierlistservice.dto.TemplatePage;
 import group_3.tierlistservice.dto.TierlistTemplateRequest;
 import group_3.tierlistservice.dto.TierlistTemplateResponse;
 import group_3.tierlistservice.dto.TierlistTemplateWithImagesResponse;
 import group_3.tierlistservice.model.TierlistTemplate;
 import group_3.tierlistservice.service.TierlistTemplateService;
+import group_3.tierlistservice.service.UniqueViewerService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.HashMap;
 import java.util.Map;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
 @RestController
 @RequestMapping("/api/templates")
@@ -28,6 +33,7 @@ import java.io.InputStreamReader;
 public class TierlistTemplateController {
 
     private final TierlistTemplateService templateService;
+    private final UniqueViewerService uniqueViewerService;
 
     @PostMapping
     public ResponseEntity<TierlistTemplateResponse> createTemplate(
@@ -50,10 +56,13 @@ public class TierlistTemplateController {
      * Note: This is a public endpoint and does not require userId verification
      */
     @GetMapping("/{id}")
-    public ResponseEntity<?> getTemplateById(@PathVariable String id) {
+    public ResponseEntity<?> getTemplateById(@PathVariable String id,
+            @RequestHeader(value = "X-User-ID", required = false) String userId) {
         log.info("Public template fetch requested for id: {}", id);
         try {
             TierlistTemplateResponse response = templateService.getTemplateById(id);
+            // Signed-in viewers feed the template's unique viewer count
+            uniqueViewerService.recordViewer(id, userId);
             return ResponseEntity.ok(response);
         } catch (RuntimeException e) {
             log.error("Error retrieving template for id {}: {}", id, e.getMessage(), e);
@@ -85,10 +94,12 @@ public class TierlistTemplateController {
      * Note: This is a public endpoint and does not require userId verification
      */
     @GetMapping("/{id}/with-images")
-    public ResponseEntity<?> getTemplateWithImagesById(@PathVariable String id) {
+    public ResponseEntity<?> getTemplateWithImagesById(@PathVariable String id,
+            @RequestHeader(value = "X-User-ID", required = false) String userId) {
         try {
             log.info("Public template with images fetch requested for id: {}", id);
             TierlistTemplateWithImagesResponse response = templateService.getTemplateWithImagesById(id);
+            uniqueViewerService.recordViewer(id, userId);
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             // Log the error with stack trace
@@ -103,10 +114,15 @@ public class TierlistTemplateController {
     }
 
     @GetMapping("/user")
-    public ResponseEntity<List<TierlistTemplateResponse>> getTemplatesByUser(
-            @RequestHeader("X-User-ID") String userId) {
-        List<TierlistTemplateResponse> responses = templateService.getTemplatesByUserId(userId);
-        return ResponseEntity.ok(responses);
+    public ResponseEntity<?> getTemplatesByUser(
+            @RequestHeader("X-User-ID") String userId,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            return pageResponse(templateService.getTemplatesByUserId(userId, after, limit));
+        } catch (IllegalArgumentException e) {
+            return invalidCursor(e);
+        }
     }
 
     @PutMapping("/{id}")
@@ -127,39 +143,81 @@ public class TierlistTemplateController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<TierlistTemplateResponse>> searchTemplates(
+    public ResponseEntity<?> searchTemplates(
             @RequestParam(required = false) String title,
-            @RequestParam(required = false) String tag) {
-        List<TierlistTemplateResponse> responses;
-
-        if (title != null && !title.isEmpty()) {
-            responses = templateService.searchTemplatesByTitle(title);
-        } else if (tag != null && !tag.isEmpty()) {
-            responses = templateService.searchTemplatesByTag(tag);
-        } else {
-            return ResponseEntity.badRequest().build();
+            @RequestParam(required = false) String tag,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit) {
+        TemplatePage page;
+
+        try {
+            if (title != null && !title.isEmpty()) {
+                page = templateService.searchTemplatesByTitle(title, after, limit);
+            } else if (tag != null && !tag.isEmpty()) {
+                page = templateService.searchTemplatesByTag(tag, after, limit);
+            } else {
+                return ResponseEntity.badRequest().build();
+            }
+        } catch (IllegalArgumentException e) {
+            return invalidCursor(e);
         }
 
-        return ResponseEntity.ok(responses);
+        return pageResponse(page);
     }
 
     /**
-     * Get all templates from the database
+     * Get all templates from the database, one page at a time
      * This is a public endpoint and does not require authentication
+     * The id to pass as ?after= for the next page is returned in the X-Next-Cursor header
      */
     @GetMapping("/all")
-    public ResponseEntity<List<TierlistTemplateResponse>> getAllTemplates() {
-        log.info("Request received to fetch all templates");
+    public ResponseEntity<?> getAllTemplates(
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit) {
+        log.info("Request received to fetch templates after {}", after);
         try {
-            List<TierlistTemplateResponse> responses = templateService.getAllTemplates();
-            log.info("Successfully retrieved {} templates", responses.size());
-            return ResponseEntity.ok(responses);
+            TemplatePage page = templateService.getAllTemplates(after, limit);
+            log.info("Successfully retrieved {} templates", page.getTemplates().size());
+            return pageResponse(page);
+        } catch (IllegalArgumentException e) {
+            return invalidCursor(e);
         } catch (Exception e) {
             log.error("Error retrieving all templates: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    /**
+     * Get the most viewed templates, most viewed first
+     * This is a public endpoint and does not require authentication
+     */
+    @GetMapping("/popular")
+    public ResponseEntity<?> getPopularTemplates(@RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(templateService.getPopularTemplates(limit));
+        } catch (Exception e) {
+            log.error("Error retrieving popular templates: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Export every template as newline-delimited JSON, streamed straight from a Mongo cursor
+     * This is a public endpoint and does not require authentication
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportTemplates(HttpServletResponse response) throws IOException {
+        log.info("Request received to export all templates");
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        try {
+            templateService.exportTemplates(response.getOutputStream());
+        } catch (IOException e) {
+            // Usually the client went away; the response is already committed either way
+            log.warn("Template export aborted: {}", e.getMessage());
+        }
+    }
+
     @GetMapping("/test-image-service")
     public ResponseEntity<Map<String, Object>> testImageServiceConnection(
             @RequestParam(required = false) String imageId) {
@@ -206,4 +264,23 @@ public class TierlistTemplateController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(result);
         }
     }
+
+    /**
+     * The body stays a plain array so existing clients keep working; the cursor travels in a header
+     */
+    private ResponseEntity<?> pageResponse(TemplatePage page) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            builder.header("X-Next-Cursor", page.getNextCursor());
+        }
+        return builder.body(page.getTemplates());
+    }
+
+    private ResponseEntity<?> invalidCursor(IllegalArgumentException e) {
+        Map<String, String> errorResponse = new HashMap<>();
+        errorResponse.put("status", "error");
+        errorResponse.put("message", "Invalid pagination cursor");
+        errorResponse.put("detail", e.getMessage());
+        return ResponseEntity.badRequest().body(errorResponse);
+    }
 }
\ No newline at end of file
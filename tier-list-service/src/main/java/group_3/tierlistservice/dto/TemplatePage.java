@@ -0,0 +1,16 @@
+package group_3.tierlistservice.dto;
+
+import lombok.Builder;
+import lombok.Data;
+import java.util.List;
+
+/**
+ * One keyset page of templates. nextCursor is the id to pass as ?after= for the following
+ * page, or null when this was the last one.
+ */
+@Data
+@Builder
+public class TemplatePage {
+    private List<TierlistTemplateResponse> templates;
+    private String nextCursor;
+}
@@ -13,6 +13,7 @@ public class TierlistTemplateResponse {
     private String title;
     private String description;
     private int viewCount;
+    private long uniqueViewers;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private List<String> tags;
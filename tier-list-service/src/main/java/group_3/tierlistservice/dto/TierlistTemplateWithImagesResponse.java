@@ -14,6 +14,7 @@ public class TierlistTemplateWithImagesResponse {
     private String title;
     private String description;
     private int viewCount;
+    private long uniqueViewers;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private List<String> tags;
@@ -0,0 +1,38 @@
+package group_3.tierlistservice.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import java.time.Instant;
+
+/**
+ * Notice that a template changed, read by every replica to drop it from its local cache.
+ * Documents expire an hour after they are written, which keeps the collection tiny.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "template_invalidations")
+public class TemplateInvalidation {
+    @Id
+    private String id;
+
+    @Field(name = "templateId")
+    private String templateId;
+
+    /**
+     * Replica that made the change; it has already invalidated its own cache
+     */
+    @Field(name = "origin")
+    private String origin;
+
+    @Indexed(expireAfter = "1h")
+    @Field(name = "createdAt")
+    private Instant createdAt;
+}
@@ -4,6 +4,7 @@ import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
@@ -13,13 +14,17 @@ import java.time.LocalDateTime;
 /**
  * Represents a record of a user completing a tierlist
  * Used for tracking daily tierlist completions
+ * Indexes are built at startup by MongoIndexConfig
  */
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "tierlist_completions")
-@CompoundIndex(name = "user_template_idx", def = "{'userId': 1, 'templateId': 1}")
+@CompoundIndexes({
+        @CompoundIndex(name = "user_template_idx", def = "{'userId': 1, 'templateId': 1}"),
+        @CompoundIndex(name = "template_completed_idx", def = "{'templateId': 1, 'completedAt': 1}")
+})
 public class TierlistCompletion {
     @Id
     private String id;
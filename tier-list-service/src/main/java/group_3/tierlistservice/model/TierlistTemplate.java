@@ -3,6 +3,8 @@ package group_3.tierlistservice.model;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
@@ -19,6 +21,13 @@ import java.util.ArrayList;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "tierlist_templates")
+@CompoundIndexes({
+        // Keyset pages filter on the field and walk _id in order
+        @CompoundIndex(name = "user_id_page_idx", def = "{'userId': 1, '_id': 1}"),
+        @CompoundIndex(name = "tags_id_page_idx", def = "{'tags': 1, '_id': 1}"),
+        // Most viewed first for the popular list
+        @CompoundIndex(name = "view_count_idx", def = "{'viewCount': -1, '_id': 1}")
+})
 public class TierlistTemplate {
     @Id
     private String id;
@@ -42,10 +51,22 @@ public class TierlistTemplate {
     @Field(name = "updatedAt")
     private LocalDateTime updatedAt;
 
+    /**
+     * Only ever changed by ViewCountService's $inc updates. Existing templates are never
+     * saved whole; edits use targeted $set updates so a stale count is never written back.
+     */
     @Builder.Default
     @Field(name = "viewCount")
     private int viewCount = 0;
 
+    /**
+     * Estimated number of distinct users who viewed the template, refreshed from its
+     * ViewerSketch by UniqueViewerService. Kept out of edits for the same reason as viewCount.
+     */
+    @Builder.Default
+    @Field(name = "uniqueViewers")
+    private long uniqueViewers = 0;
+
     @Size(max = 10, message = "Cannot have more than 10 tags")
     @Builder.Default
     @Field(name = "tags")
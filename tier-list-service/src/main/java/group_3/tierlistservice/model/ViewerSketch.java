@@ -0,0 +1,40 @@
+package group_3.tierlistservice.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import java.time.LocalDateTime;
+
+/**
+ * HyperLogLog registers of a template's unique viewers, one document per template.
+ * Kept out of tierlist_templates so template reads don't carry the 4 KB sketch around.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "template_viewer_sketches")
+public class ViewerSketch {
+    /**
+     * Same as the template ID
+     */
+    @Id
+    private String id;
+
+    @Field(name = "registers")
+    private byte[] registers;
+
+    @Field(name = "updatedAt")
+    private LocalDateTime updatedAt;
+
+    /**
+     * Replicas merge into the same document, so writes are optimistic and retried on conflict
+     */
+    @Version
+    private Long version;
+}
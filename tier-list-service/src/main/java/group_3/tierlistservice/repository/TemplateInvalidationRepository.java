@@ -0,0 +1,16 @@
+package group_3.tierlistservice.repository;
+
+import group_3.tierlistservice.model.TemplateInvalidation;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface TemplateInvalidationRepository extends MongoRepository<TemplateInvalidation, String> {
+    /**
+     * Find invalidations written by other replicas since the given time
+     */
+    List<TemplateInvalidation> findByCreatedAtAfterAndOriginNot(Instant since, String origin);
+}
@@ -0,0 +1,9 @@
+package group_3.tierlistservice.repository;
+
+import group_3.tierlistservice.model.ViewerSketch;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ViewerSketchRepository extends MongoRepository<ViewerSketch, String> {
+}
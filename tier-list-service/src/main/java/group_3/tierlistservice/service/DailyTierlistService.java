@@ -2,25 +2,81 @@ package group_3.tierlistservice.service;
 
 import group_3.tierlistservice.model.TierlistCompletion;
 import group_3.tierlistservice.model.TierlistTemplate;
-import group_3.tierlistservice.repository.TierlistCompletionRepository;
 import group_3.tierlistservice.repository.TierlistTemplateRepository;
-import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves the daily tierlist from memory.
+ *
+ * The day's template and the ids of everyone who has completed it are held in a DailyState, so
+ * both the daily lookup and the "already completed" check are answered without Mongo. Tomorrow's
+ * state is loaded a few minutes before midnight and swapped in at 00:00, which keeps the midnight
+ * rush off the database. Completions are written to Mongo on a background writer; a periodic
+ * refresh picks up a daily changed on another replica and completions recorded there.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class DailyTierlistService {
 
     private final TierlistTemplateRepository templateRepository;
-    private final TierlistCompletionRepository completionRepository;
+    private final TemplateCacheService templateCacheService;
+    private final MongoTemplate mongoTemplate;
+    private final Duration refreshOverlap;
+    private final ExecutorService completionWriter;
+
+    private volatile DailyState current;
+    private volatile DailyState next;
+
+    public DailyTierlistService(TierlistTemplateRepository templateRepository,
+            TemplateCacheService templateCacheService,
+            MongoTemplate mongoTemplate,
+            @Value("${tierlist.daily.refresh-overlap:5s}") Duration refreshOverlap,
+            @Value("${tierlist.daily.write-queue:10000}") int writeQueue) {
+        this.templateRepository = templateRepository;
+        this.templateCacheService = templateCacheService;
+        this.mongoTemplate = mongoTemplate;
+        this.refreshOverlap = refreshOverlap;
+        // One writer keeps completion inserts off the request thread; when the queue is full the
+        // caller writes it itself rather than dropping it. Once shut down the task is rejected,
+        // and markDailyTierlistCompleted writes it synchronously instead.
+        this.completionWriter = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(writeQueue),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "daily-completion-writer");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (task, executor) -> {
+                    if (executor.isShutdown()) {
+                        throw new RejectedExecutionException("Completion writer is shut down");
+                    }
+                    task.run();
+                });
+    }
 
     /**
      * Get the current daily tierlist
@@ -31,26 +87,19 @@ public class DailyTierlistService {
     public Map<String, Object> getDailyTierlist(String userId) {
         Map<String, Object> response = new HashMap<>();
 
-        // Get today's date
-        LocalDate today = LocalDate.now();
-
-        // Try to find a template set as daily for today
-        Optional<TierlistTemplate> todayTemplate = templateRepository.findByWasDailyList(today);
+        DailyState state = currentState();
 
         // If no template is set for today
-        if (todayTemplate.isEmpty()) {
+        if (state.template == null) {
             response.put("available", false);
             response.put("message", "No daily tierlist available for today");
             return response;
         }
 
-        TierlistTemplate dailyTemplate = todayTemplate.get();
-
-        // Check if user has already completed this template
-        boolean completed = completionRepository.existsByUserIdAndTemplateId(userId, dailyTemplate.getId());
+        TierlistTemplate dailyTemplate = state.template;
 
         response.put("available", true);
-        response.put("completed", completed);
+        response.put("completed", state.completedUserIds.contains(userId));
         response.put("templateId", dailyTemplate.getId());
         response.put("title", dailyTemplate.getTitle());
         response.put("description", dailyTemplate.getDescription());
@@ -87,7 +136,8 @@ public class DailyTierlistService {
                 // For now, we just unset the daily status
 
                 oldDaily.setWasDailyList(null);
-                templateRepository.save(oldDaily);
+                setWasDailyList(oldDaily.getId(), null);
+                templateCacheService.invalidate(oldDaily.getId());
             } else {
                 // The requested template is already set as daily
                 log.info("Template {} is already set as today's daily tierlist", templateId);
@@ -100,7 +150,11 @@ public class DailyTierlistService {
                 .orElseThrow(() -> new RuntimeException("Template not found with id: " + templateId));
 
         template.setWasDailyList(today);
-        template = templateRepository.save(template);
+        setWasDailyList(templateId, today);
+        templateCacheService.invalidate(templateId);
+
+        // Swap in the new daily here right away; other replicas pick it up on their next refresh
+        replaceState(today);
 
         log.info("Set template {} as daily tierlist for {}", templateId, today);
 
@@ -116,42 +170,189 @@ public class DailyTierlistService {
     public Map<String, Object> markDailyTierlistCompleted(String userId) {
         Map<String, Object> response = new HashMap<>();
 
-        // Get today's date
-        LocalDate today = LocalDate.now();
-
-        // Try to find a template set as daily for today
-        Optional<TierlistTemplate> todayTemplate = templateRepository.findByWasDailyList(today);
+        DailyState state = currentState();
 
         // If no template is set for today
-        if (todayTemplate.isEmpty()) {
+        if (state.template == null) {
             response.put("success", false);
             response.put("message", "No daily tierlist available to complete");
             return response;
         }
 
-        TierlistTemplate dailyTemplate = todayTemplate.get();
-        String templateId = dailyTemplate.getId();
+        String templateId = state.template.getId();
 
-        // Check if user has already completed this template
-        if (completionRepository.existsByUserIdAndTemplateId(userId, templateId)) {
+        // add is atomic, so two concurrent requests from the same user can't both succeed
+        if (!state.completedUserIds.add(userId)) {
             response.put("success", false);
             response.put("message", "You have already completed today's tierlist");
             return response;
         }
 
-        // Create completion record
-        TierlistCompletion completion = TierlistCompletion.builder()
-                .userId(userId)
-                .templateId(templateId)
-                .completedAt(LocalDateTime.now())
-                .build();
-
-        completionRepository.save(completion);
+        try {
+            completionWriter.execute(() -> persistCompletion(state, userId, templateId));
+        } catch (RejectedExecutionException e) {
+            // Shutting down: write it here so the reply says whether it was actually stored
+            if (!persistCompletion(state, userId, templateId)) {
+                response.put("success", false);
+                response.put("message", "Could not save your completion, please try again");
+                return response;
+            }
+        }
 
-        log.info("User {} completed daily tierlist {} for {}", userId, templateId, today);
+        log.info("User {} completed daily tierlist {} for {}", userId, templateId, state.date);
 
         response.put("success", true);
         response.put("message", "Daily tierlist completed successfully");
         return response;
     }
-}
\ No newline at end of file
+
+    /**
+     * Load tomorrow's daily shortly before midnight so the rollover is just a swap
+     */
+    @Scheduled(cron = "${tierlist.daily.prewarm-cron:0 55 23 * * *}")
+    public void prewarm() {
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+        try {
+            next = loadState(tomorrow);
+            log.info("Pre-warmed daily tierlist for {} ({} completions)", tomorrow, next.completedUserIds.size());
+        } catch (Exception e) {
+            log.error("Failed to pre-warm daily tierlist for {}: {}", tomorrow, e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${tierlist.daily.rollover-cron:0 0 0 * * *}")
+    public void rollover() {
+        DailyState state = currentState();
+        log.info("Rolled over daily tierlist to {} (template {})", state.date,
+                state.template != null ? state.template.getId() : "none");
+    }
+
+    /**
+     * Pick up a daily set on another replica, or a title change, and completions recorded on
+     * other replicas since the last refresh. Reads only the completions newer than the previous
+     * refresh, overlapping a little to cover clock skew; re-adding a known id is harmless.
+     */
+    @Scheduled(fixedDelayString = "${tierlist.daily.refresh-ms:30000}")
+    public void refresh() {
+        try {
+            DailyState state = currentState();
+            LocalDateTime syncStart = LocalDateTime.now();
+            TierlistTemplate template = templateRepository.findByWasDailyList(state.date).orElse(null);
+            String currentId = state.template != null ? state.template.getId() : null;
+            String latestId = template != null ? template.getId() : null;
+            if (!Objects.equals(currentId, latestId)) {
+                replaceState(state.date);
+                return;
+            }
+            if (template == null) {
+                return;
+            }
+            state.template = template;
+            loadCompletions(state, template.getId(), state.syncedAt.minus(refreshOverlap));
+            state.syncedAt = syncStart;
+        } catch (Exception e) {
+            log.error("Failed to refresh daily tierlist: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        log.info("Writing pending daily completions before shutdown");
+        completionWriter.shutdown();
+        if (!completionWriter.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("Timed out writing pending daily completions");
+        }
+    }
+
+    /**
+     * Today's state, rolling over to a pre-warmed (or freshly loaded) one when the date changes
+     */
+    private DailyState currentState() {
+        LocalDate today = LocalDate.now();
+        DailyState state = current;
+        if (state != null && state.date.equals(today)) {
+            return state;
+        }
+        synchronized (this) {
+            state = current;
+            if (state == null || !state.date.equals(today)) {
+                DailyState warmed = next;
+                state = warmed != null && warmed.date.equals(today) ? warmed : loadState(today);
+                current = state;
+                next = null;
+            }
+            return state;
+        }
+    }
+
+    /**
+     * Set or clear only wasDailyList, leaving the view counters to their own $inc updates
+     */
+    private void setWasDailyList(String templateId, LocalDate date) {
+        Update update = date == null ? new Update().unset("wasDailyList") : new Update().set("wasDailyList", date);
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(templateId)), update, TierlistTemplate.class);
+    }
+
+    private synchronized void replaceState(LocalDate date) {
+        current = loadState(date);
+    }
+
+    private DailyState loadState(LocalDate date) {
+        DailyState state = new DailyState(date);
+        state.syncedAt = LocalDateTime.now();
+        state.template = templateRepository.findByWasDailyList(date).orElse(null);
+        if (state.template != null) {
+            loadCompletions(state, state.template.getId(), null);
+        }
+        return state;
+    }
+
+    /**
+     * Stream the user ids that completed a template, reading only the userId field
+     */
+    private void loadCompletions(DailyState state, String templateId, LocalDateTime since) {
+        Criteria criteria = Criteria.where("templateId").is(templateId);
+        if (since != null) {
+            criteria = criteria.and("completedAt").gt(since);
+        }
+        Query query = Query.query(criteria);
+        query.fields().include("userId");
+        try (CloseableIterator<TierlistCompletion> completions = mongoTemplate.stream(query, TierlistCompletion.class)) {
+            completions.forEachRemaining(completion -> state.completedUserIds.add(completion.getUserId()));
+        }
+    }
+
+    /**
+     * Upserting on (userId, templateId) keeps the write idempotent if another replica recorded
+     * the same completion before its refresh reached this one. completedAt is stamped here, at
+     * write time, so a completion that waited in the queue still lands inside other replicas'
+     * refresh window instead of behind it.
+     *
+     * @return true if the completion was stored
+     */
+    private boolean persistCompletion(DailyState state, String userId, String templateId) {
+        try {
+            mongoTemplate.upsert(
+                    Query.query(Criteria.where("userId").is(userId).and("templateId").is(templateId)),
+                    new Update().setOnInsert("completedAt", LocalDateTime.now()),
+                    TierlistCompletion.class);
+            return true;
+        } catch (Exception e) {
+            // Let the user complete it again rather than report a completion that was never stored
+            log.error("Failed to save completion of {} by {}: {}", templateId, userId, e.getMessage());
+            state.completedUserIds.remove(userId);
+            return false;
+        }
+    }
+
+    private static final class DailyState {
+        private final LocalDate date;
+        private final Set<String> completedUserIds = ConcurrentHashMap.newKeySet();
+        private volatile TierlistTemplate template;
+        private volatile LocalDateTime syncedAt;
+
+        private DailyState(LocalDate date) {
+            this.date = date;
+        }
+    }
+}
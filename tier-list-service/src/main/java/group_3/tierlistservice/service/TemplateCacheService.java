@@ -0,0 +1,152 @@
+package group_3.tierlistservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import group_3.tierlistservice.dto.TierlistTemplateWithImagesResponse;
+import group_3.tierlistservice.model.TemplateInvalidation;
+import group_3.tierlistservice.model.TierlistTemplate;
+import group_3.tierlistservice.repository.TemplateInvalidationRepository;
+import group_3.tierlistservice.repository.TierlistTemplateRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * In-process cache of templates and their with-images responses.
+ *
+ * Caffeine's W-TinyLFU admission keeps popular templates resident while one-off reads of the
+ * long tail can't push them out. Writes invalidate the local entry immediately and record a
+ * TemplateInvalidation that the other replicas poll for, so they drop it within a poll interval.
+ * Entries also expire after a fixed time as a backstop for a missed invalidation.
+ */
+@Slf4j
+@Service
+public class TemplateCacheService {
+
+    private final TierlistTemplateRepository templateRepository;
+    private final TemplateInvalidationRepository invalidationRepository;
+    private final Cache<String, TierlistTemplate> templates;
+    private final Cache<String, TierlistTemplateWithImagesResponse> withImages;
+    private final Duration pollOverlap;
+    private final String replicaId = UUID.randomUUID().toString();
+    private final AtomicLong evictions = new AtomicLong();
+    private Instant lastPoll = Instant.now();
+
+    public TemplateCacheService(TierlistTemplateRepository templateRepository,
+            TemplateInvalidationRepository invalidationRepository,
+            MeterRegistry meterRegistry,
+            @Value("${tierlist.cache.max-templates:10000}") long maxTemplates,
+            @Value("${tierlist.cache.max-responses:2000}") long maxResponses,
+            @Value("${tierlist.cache.expire-after-write:5m}") Duration expireAfterWrite,
+            @Value("${tierlist.cache.invalidation.overlap:5s}") Duration pollOverlap) {
+        this.templateRepository = templateRepository;
+        this.invalidationRepository = invalidationRepository;
+        this.pollOverlap = pollOverlap;
+        this.templates = Caffeine.newBuilder()
+                .maximumSize(maxTemplates)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.withImages = Caffeine.newBuilder()
+                .maximumSize(maxResponses)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+
+        // cache.gets{result=hit|miss}, cache.evictions, cache.size, plus a ready-made hit ratio
+        CaffeineCacheMetrics.monitor(meterRegistry, templates, "tierlist.templates");
+        CaffeineCacheMetrics.monitor(meterRegistry, withImages, "tierlist.templates.with-images");
+        Gauge.builder("tierlist.cache.hit.ratio", templates, cache -> cache.stats().hitRate())
+                .tag("cache", "tierlist.templates")
+                .register(meterRegistry);
+        Gauge.builder("tierlist.cache.hit.ratio", withImages, cache -> cache.stats().hitRate())
+                .tag("cache", "tierlist.templates.with-images")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Get a template, loading it from Mongo on a miss. Missing templates are not cached.
+     * The returned instance is shared, so callers must not modify it.
+     */
+    public Optional<TierlistTemplate> getTemplate(String id) {
+        return Optional.ofNullable(templates.get(id, key -> templateRepository.findById(key).orElse(null)));
+    }
+
+    /**
+     * Get the with-images response for a template, building it with the given function on a miss.
+     * A built response that fails the cacheable check is returned to the caller but not stored.
+     *
+     * The builder calls the image service, so it runs outside the cache rather than inside a
+     * Caffeine compute, where it would hold a lock on the entry's bin for the whole HTTP call.
+     * Concurrent misses may build the same response twice. A response is not stored if an
+     * invalidation landed while it was being built, since it may predate the change.
+     */
+    public TierlistTemplateWithImagesResponse getWithImages(String id,
+            Function<String, TierlistTemplateWithImagesResponse> builder,
+            Predicate<TierlistTemplateWithImagesResponse> cacheable) {
+        TierlistTemplateWithImagesResponse cached = withImages.getIfPresent(id);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = evictions.get();
+        TierlistTemplateWithImagesResponse built = builder.apply(id);
+        if (cacheable.test(built) && evictions.get() == generation) {
+            withImages.put(id, built);
+        }
+        return built;
+    }
+
+    /**
+     * Drop a template from this replica's cache and tell the other replicas to do the same.
+     * Call after the write has been saved.
+     */
+    public void invalidate(String id) {
+        evict(id);
+        try {
+            invalidationRepository.save(TemplateInvalidation.builder()
+                    .templateId(id)
+                    .origin(replicaId)
+                    .createdAt(Instant.now())
+                    .build());
+        } catch (Exception e) {
+            // Other replicas still pick up the change when their entry expires
+            log.error("Failed to broadcast cache invalidation for template {}: {}", id, e.getMessage());
+        }
+    }
+
+    /**
+     * Apply invalidations from other replicas. Each poll looks back a little past the previous
+     * one to cover clock skew between replicas; evicting the same id twice is harmless.
+     */
+    @Scheduled(fixedDelayString = "${tierlist.cache.invalidation.poll-ms:1000}")
+    public void pollInvalidations() {
+        Instant now = Instant.now();
+        try {
+            for (TemplateInvalidation invalidation : invalidationRepository
+                    .findByCreatedAtAfterAndOriginNot(lastPoll.minus(pollOverlap), replicaId)) {
+                evict(invalidation.getTemplateId());
+            }
+            lastPoll = now;
+        } catch (Exception e) {
+            log.error("Failed to poll template cache invalidations: {}", e.getMessage());
+        }
+    }
+
+    private void evict(String id) {
+        evictions.incrementAndGet();
+        templates.invalidate(id);
+        withImages.invalidate(id);
+    }
+}
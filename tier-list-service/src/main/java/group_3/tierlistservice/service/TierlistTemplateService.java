@@ -1,5 +1,7 @@
 package group_3.tierlistservice.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import group_3.tierlistservice.dto.TemplatePage;
 import group_3.tierlistservice.dto.TierlistTemplateRequest;
 import group_3.tierlistservice.dto.TierlistTemplateResponse;
 import group_3.tierlistservice.dto.TierlistTemplateWithImagesResponse;
@@ -7,15 +9,25 @@ import group_3.tierlistservice.model.TierlistTemplate;
 import group_3.tierlistservice.repository.TierlistTemplateRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.Collections;
 import java.util.ArrayList;
+import java.util.regex.Pattern;
 
 @Slf4j
 @Service
@@ -24,10 +36,24 @@ public class TierlistTemplateService {
 
         private final TierlistTemplateRepository templateRepository;
         private final MongoTemplate mongoTemplate;
+        private final TemplateCacheService templateCacheService;
+        private final ViewCountService viewCountService;
+        private final UniqueViewerService uniqueViewerService;
 
         @Autowired
         private ImageServiceClient imageServiceClient;
 
+        @Autowired
+        private ObjectMapper objectMapper;
+
+        @Value("${tierlist.page.default-limit:50}")
+        private int defaultPageSize;
+
+        @Value("${tierlist.page.max-limit:200}")
+        private int maxPageSize;
+
+        private static final int EXPORT_BATCH_SIZE = 500;
+
         public TierlistTemplateResponse createTemplate(TierlistTemplateRequest request, String userId) {
                 // Create and save the template
                 log.info("Starting createTemplate service method with userId: {}", userId);
@@ -91,7 +117,7 @@ public class TierlistTemplateService {
                         // Try to find the template by ID
                         TierlistTemplate template = null;
                         try {
-                                template = templateRepository.findById(id)
+                                template = templateCacheService.getTemplate(id)
                                                 .orElseThrow(() -> new RuntimeException(
                                                                 "Template not found with id: " + id));
                                 log.info("Successfully found template with ID: {} and userId: {}", id,
@@ -101,15 +127,8 @@ public class TierlistTemplateService {
                                 throw e;
                         }
 
-                        // Increment view count
-                        try {
-                                template.setViewCount(template.getViewCount() + 1);
-                                templateRepository.save(template);
-                                log.info("Successfully incremented view count for template: {}", id);
-                        } catch (Exception e) {
-                                log.error("Failed to update view count for template: {}", id, e);
-                                // Continue execution even if view count update fails
-                        }
+                        // Counted in memory and flushed in bulk by ViewCountService
+                        viewCountService.recordView(id);
 
                         // Build response
                         try {
@@ -136,76 +155,75 @@ public class TierlistTemplateService {
                 try {
                         log.info("Beginning getTemplateWithImagesById for id: {}", id);
 
-                        // Get the template
-                        log.info("Attempting to fetch template from database with id: {}", id);
-                        TierlistTemplate template = null;
-                        try {
-                                template = templateRepository.findById(id)
-                                                .orElseThrow(() -> new RuntimeException(
-                                                                "Template not found with id: " + id));
+                        // Built responses are cached, so the image service is only called on a miss.
+                        // A response missing its images (image service down) is returned but not cached
+                        TierlistTemplateWithImagesResponse response = templateCacheService.getWithImages(id,
+                                        this::loadTemplateWithImages,
+                                        built -> built.getImages() != null && !built.getImages().isEmpty());
 
-                                // Added log to show the userId in the template for debugging
-                                log.info("Successfully retrieved template from database: {} with userId: {}",
-                                                template.getId(), template.getUserId());
-                        } catch (Exception e) {
-                                log.error("Failed to retrieve template from database: {}", e.getMessage(), e);
-                                throw e;
-                        }
+                        // Counted in memory and flushed in bulk by ViewCountService
+                        viewCountService.recordView(id);
+                        return response;
+                } catch (Exception e) {
+                        log.error("Unhandled exception in getTemplateWithImagesById: {}", e.getMessage(), e);
+                        throw e;
+                }
+        }
 
-                        // Increment view count
-                        log.info("Incrementing view count for template: {}", template.getId());
-                        try {
-                                template.setViewCount(template.getViewCount() + 1);
-                                templateRepository.save(template);
-                                log.info("View count incremented and saved successfully");
-                        } catch (Exception e) {
-                                log.error("Failed to update view count: {}", e.getMessage(), e);
-                                // Continue execution even if view count update fails
-                        }
+        /**
+         * Builds the with-images response on a cache miss
+         */
+        private TierlistTemplateWithImagesResponse loadTemplateWithImages(String id) {
+                // Get the template
+                log.info("Attempting to fetch template with id: {}", id);
+                TierlistTemplate template = null;
+                try {
+                        template = templateCacheService.getTemplate(id)
+                                        .orElseThrow(() -> new RuntimeException(
+                                                        "Template not found with id: " + id));
 
-                        // Fetch images from the image service
-                        log.info("Preparing to fetch images. Template has {} image IDs", template.getImageIds().size());
-                        log.info("Image IDs to fetch: {}", template.getImageIds());
-                        List<TierlistTemplateWithImagesResponse.ImageMetadata> images = null;
-                        try {
-                                images = imageServiceClient.getImagesByIds(template.getImageIds());
-                                log.info("Successfully retrieved {} images from image service", images.size());
-                                if (images.isEmpty()) {
-                                        log.warn("No images found for the provided imageIds: {}",
-                                                        template.getImageIds());
-                                } else {
-                                        log.info("First image retrieved: {}", images.get(0));
-                                }
-                        } catch (Exception e) {
-                                log.error("Error while fetching images from image service: {}", e.getMessage(), e);
-                                // Continue with empty images rather than failing completely
-                                images = Collections.emptyList();
-                        }
+                        // Added log to show the userId in the template for debugging
+                        log.info("Successfully retrieved template: {} with userId: {}",
+                                        template.getId(), template.getUserId());
+                } catch (Exception e) {
+                        log.error("Failed to retrieve template from database: {}", e.getMessage(), e);
+                        throw e;
+                }
 
-                        // Build and return the combined response
-                        log.info("Building final response with template and {} images", images.size());
-                        try {
-                                TierlistTemplateWithImagesResponse response = buildTemplateWithImagesResponse(template,
-                                                images);
-                                log.info("Successfully built response with template ID: {}", response.getId());
-                                return response;
-                        } catch (Exception e) {
-                                log.error("Error while building template response: {}", e.getMessage(), e);
-                                throw e;
+                // Fetch images from the image service
+                log.info("Preparing to fetch images. Template has {} image IDs", template.getImageIds().size());
+                log.info("Image IDs to fetch: {}", template.getImageIds());
+                List<TierlistTemplateWithImagesResponse.ImageMetadata> images = null;
+                try {
+                        images = imageServiceClient.getImagesByIds(template.getImageIds());
+                        log.info("Successfully retrieved {} images from image service", images.size());
+                        if (images.isEmpty()) {
+                                log.warn("No images found for the provided imageIds: {}",
+                                                template.getImageIds());
+                        } else {
+                                log.info("First image retrieved: {}", images.get(0));
                         }
                 } catch (Exception e) {
-                        log.error("Unhandled exception in getTemplateWithImagesById: {}", e.getMessage(), e);
+                        log.error("Error while fetching images from image service: {}", e.getMessage(), e);
+                        // Continue with empty images rather than failing completely
+                        images = Collections.emptyList();
+                }
+
+                // Build and return the combined response
+                log.info("Building final response with template and {} images", images.size());
+                try {
+                        TierlistTemplateWithImagesResponse response = buildTemplateWithImagesResponse(template,
+                                        images);
+                        log.info("Successfully built response with template ID: {}", response.getId());
+                        return response;
+                } catch (Exception e) {
+                        log.error("Error while building template response: {}", e.getMessage(), e);
                         throw e;
                 }
         }
 
-        public List<TierlistTemplateResponse> getTemplatesByUserId(String userId) {
-                List<TierlistTemplate> templates = templateRepository.findByUserId(userId);
-
-                // Build responses
-                return templates.stream()
-                                .map(this::buildTemplateResponse)
-                                .collect(Collectors.toList());
+        public TemplatePage getTemplatesByUserId(String userId, String after, Integer limit) {
+                return findPage(Criteria.where("userId").is(userId), after, limit);
         }
 
         public TierlistTemplateResponse updateTemplate(String id, TierlistTemplateRequest request, String userId) {
@@ -230,10 +248,19 @@ public class TierlistTemplateService {
                         template = setDefaultThumbnail(template);
                 }
 
-                TierlistTemplate updatedTemplate = templateRepository.save(template);
-                log.info("Updated template with ID: {}", updatedTemplate.getId());
-
-                return buildTemplateResponse(updatedTemplate);
+                // Set only the edited fields so view counters bumped since the load are kept
+                Update update = new Update()
+                                .set("title", template.getTitle())
+                                .set("description", template.getDescription())
+                                .set("tags", template.getTags())
+                                .set("imageIds", template.getImageIds())
+                                .set("thumbnailUrl", template.getThumbnailUrl())
+                                .set("updatedAt", template.getUpdatedAt());
+                mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(id)), update, TierlistTemplate.class);
+                templateCacheService.invalidate(id);
+                log.info("Updated template with ID: {}", template.getId());
+
+                return buildTemplateResponse(template);
         }
 
         public void deleteTemplate(String id, String userId) {
@@ -246,46 +273,127 @@ public class TierlistTemplateService {
                 }
 
                 templateRepository.delete(template);
+                templateCacheService.invalidate(id);
+                uniqueViewerService.deleteSketch(id);
                 log.info("Deleted template with ID: {}", id);
         }
 
-        public List<TierlistTemplateResponse> searchTemplatesByTitle(String title) {
-                List<TierlistTemplate> templates = templateRepository.findByTitleContainingIgnoreCase(title);
-                return templates.stream().map(this::buildTemplateResponse).collect(Collectors.toList());
+        public TemplatePage searchTemplatesByTitle(String title, String after, Integer limit) {
+                Pattern contains = Pattern.compile(Pattern.quote(title), Pattern.CASE_INSENSITIVE);
+                return findPage(Criteria.where("title").regex(contains), after, limit);
         }
 
-        public List<TierlistTemplateResponse> searchTemplatesByTag(String tag) {
-                List<TierlistTemplate> templates = templateRepository.findByTagsContaining(tag);
-                return templates.stream().map(this::buildTemplateResponse).collect(Collectors.toList());
+        public TemplatePage searchTemplatesByTag(String tag, String after, Integer limit) {
+                return findPage(Criteria.where("tags").is(tag), after, limit);
         }
 
         /**
-         * Get all templates in the database
+         * Get one page of all templates, in id order
          * 
-         * @return List of all templates as response objects
+         * @param after The last id of the previous page, or null for the first page
+         * @param limit Page size, or null for the default
+         * @return The page and the cursor for the next one
          */
-        public List<TierlistTemplateResponse> getAllTemplates() {
-                log.info("Fetching all templates from database");
-                List<TierlistTemplate> templates = templateRepository.findAll();
-                log.info("Found {} templates in total", templates.size());
-                return templates.stream()
+        public TemplatePage getAllTemplates(String after, Integer limit) {
+                return findPage(new Criteria(), after, limit);
+        }
+
+        /**
+         * Get the most viewed templates, most viewed first
+         * 
+         * @param limit Number of templates, or null for the default page size
+         * @return The templates as response objects
+         */
+        public List<TierlistTemplateResponse> getPopularTemplates(Integer limit) {
+                Query query = new Query()
+                                .with(Sort.by(Sort.Direction.DESC, "viewCount").and(Sort.by(Sort.Direction.ASC, "_id")))
+                                .limit(pageSize(limit));
+                query.fields().exclude("imageIds");
+                return mongoTemplate.find(query, TierlistTemplate.class)
+                                .stream()
                                 .map(this::buildTemplateResponse)
                                 .collect(Collectors.toList());
         }
 
+        /**
+         * Write every template as one JSON line, reading them through a Mongo cursor so memory
+         * use stays flat however large the catalogue is
+         * 
+         * @param out The stream to write NDJSON to
+         * @return The number of templates written
+         */
+        public long exportTemplates(OutputStream out) throws IOException {
+                Query query = new Query().with(Sort.by(Sort.Direction.ASC, "_id"));
+                query.fields().exclude("imageIds");
+                query.cursorBatchSize(EXPORT_BATCH_SIZE);
+
+                long written = 0;
+                try (CloseableIterator<TierlistTemplate> templates = mongoTemplate.stream(query,
+                                TierlistTemplate.class)) {
+                        while (templates.hasNext()) {
+                                out.write(objectMapper.writeValueAsBytes(buildTemplateResponse(templates.next())));
+                                out.write('\n');
+                                // Hand each batch to the client instead of buffering the whole export
+                                if (++written % EXPORT_BATCH_SIZE == 0) {
+                                        out.flush();
+                                }
+                        }
+                }
+                out.flush();
+                log.info("Exported {} templates", written);
+                return written;
+        }
+
+        /**
+         * Keyset pagination on _id: each page starts after the last id of the previous one, so
+         * deep pages cost the same as the first and inserts don't shift page boundaries.
+         * imageIds is the largest field and list responses don't use it, so it is never loaded.
+         */
+        private TemplatePage findPage(Criteria criteria, String after, Integer limit) {
+                int pageSize = pageSize(limit);
+                if (after != null && !after.isEmpty()) {
+                        if (!ObjectId.isValid(after)) {
+                                throw new IllegalArgumentException("Invalid cursor: " + after);
+                        }
+                        criteria = new Criteria().andOperator(criteria, Criteria.where("_id").gt(new ObjectId(after)));
+                }
+
+                Query query = Query.query(criteria)
+                                .with(Sort.by(Sort.Direction.ASC, "_id"))
+                                .limit(pageSize);
+                query.fields().exclude("imageIds");
+
+                List<TierlistTemplateResponse> templates = mongoTemplate.find(query, TierlistTemplate.class)
+                                .stream()
+                                .map(this::buildTemplateResponse)
+                                .collect(Collectors.toList());
+
+                // A short page means there is nothing after it
+                String nextCursor = templates.size() == pageSize ? templates.get(pageSize - 1).getId() : null;
+                return TemplatePage.builder()
+                                .templates(templates)
+                                .nextCursor(nextCursor)
+                                .build();
+        }
+
+        private int pageSize(Integer limit) {
+                return limit == null ? defaultPageSize : Math.min(Math.max(limit, 1), maxPageSize);
+        }
+
         /**
          * Build a response object from the template entity.
          * Ensures all fields are correctly extracted from the saved entity,
          * with fallbacks to the original values if necessary.
          */
         private TierlistTemplateResponse buildTemplateResponse(TierlistTemplate template) {
-                log.info("Building template response for template ID: {}", template.getId());
+                log.debug("Building template response for template ID: {}", template.getId());
 
                 TierlistTemplateResponse response = TierlistTemplateResponse.builder()
                                 .id(template.getId())
                                 .title(template.getTitle())
                                 .description(template.getDescription())
                                 .viewCount(template.getViewCount())
+                                .uniqueViewers(template.getUniqueViewers())
                                 .createdAt(template.getCreatedAt())
                                 .updatedAt(template.getUpdatedAt())
                                 .tags(template.getTags())
@@ -294,7 +402,7 @@ public class TierlistTemplateService {
                                 .isCurrentDailyList(template.isCurrentDailyList())
                                 .build();
 
-                log.info("Built response with title: {}, description: {}, tags: {}",
+                log.debug("Built response with title: {}, description: {}, tags: {}",
                                 response.getTitle(), response.getDescription(), response.getTags());
 
                 return response;
@@ -311,6 +419,7 @@ public class TierlistTemplateService {
                                 .title(template.getTitle())
                                 .description(template.getDescription())
                                 .viewCount(template.getViewCount())
+                                .uniqueViewers(template.getUniqueViewers())
                                 .createdAt(template.getCreatedAt())
                                 .updatedAt(template.getUpdatedAt())
                                 .tags(template.getTags())
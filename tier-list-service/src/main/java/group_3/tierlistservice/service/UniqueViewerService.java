@@ -0,0 +1,128 @@
+package group_3.tierlistservice.service;
+
+import group_3.tierlistservice.model.TierlistTemplate;
+import group_3.tierlistservice.model.ViewerSketch;
+import group_3.tierlistservice.repository.ViewerSketchRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counts distinct viewers per template with HyperLogLog sketches.
+ *
+ * Views are folded into a small in-memory sketch per template. Each flush merges those into the
+ * template's stored ViewerSketch and refreshes the uniqueViewers estimate on the template, so
+ * list endpoints can show it without touching the sketches. A flush only writes when a register
+ * actually grew, so users re-opening templates they have already seen cost nothing in Mongo.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UniqueViewerService {
+
+    private static final int MAX_MERGE_ATTEMPTS = 3;
+
+    private final ViewerSketchRepository sketchRepository;
+    private final MongoTemplate mongoTemplate;
+    private final Map<String, HyperLogLog> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Record that a user viewed a template. Anonymous views are not counted.
+     */
+    public void recordViewer(String templateId, String userId) {
+        if (userId == null || userId.isBlank()) {
+            return;
+        }
+        // compute holds the entry's lock, so the flusher never takes a sketch mid-update
+        pending.compute(templateId, (id, sketch) -> {
+            HyperLogLog target = sketch != null ? sketch : new HyperLogLog();
+            target.offer(userId);
+            return target;
+        });
+    }
+
+    /**
+     * Drop a deleted template's sketch, including anything not yet flushed
+     */
+    public void deleteSketch(String templateId) {
+        pending.remove(templateId);
+        sketchRepository.deleteById(templateId);
+    }
+
+    @Scheduled(fixedDelayString = "${tierlist.viewers.flush-ms:10000}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        log.info("Flushing pending viewer sketches before shutdown");
+        flush();
+    }
+
+    public synchronized void flush() {
+        List<String> templateIds = new ArrayList<>(pending.keySet());
+        int written = 0;
+        for (String templateId : templateIds) {
+            HyperLogLog sketch = pending.remove(templateId);
+            if (sketch == null) {
+                continue;
+            }
+            try {
+                if (mergeIntoStored(templateId, sketch)) {
+                    written++;
+                }
+            } catch (Exception e) {
+                log.error("Failed to flush viewer sketch for template {}: {}", templateId, e.getMessage());
+                pending.merge(templateId, sketch, (current, failed) -> {
+                    current.merge(failed);
+                    return current;
+                });
+            }
+        }
+        if (written > 0) {
+            log.info("Updated unique viewer sketches for {} of {} templates", written, templateIds.size());
+        }
+    }
+
+    /**
+     * @return true if the stored sketch changed
+     */
+    private boolean mergeIntoStored(String templateId, HyperLogLog sketch) {
+        for (int attempt = 1; ; attempt++) {
+            ViewerSketch stored = sketchRepository.findById(templateId)
+                    .orElseGet(() -> ViewerSketch.builder().id(templateId).build());
+            HyperLogLog merged = HyperLogLog.fromBytes(stored.getRegisters());
+            if (!merged.merge(sketch)) {
+                return false;
+            }
+            stored.setRegisters(merged.toBytes());
+            stored.setUpdatedAt(LocalDateTime.now());
+            try {
+                sketchRepository.save(stored);
+            } catch (OptimisticLockingFailureException e) {
+                // Another replica merged first; re-read and merge again, which is idempotent
+                if (attempt >= MAX_MERGE_ATTEMPTS) {
+                    throw e;
+                }
+                continue;
+            }
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(templateId)),
+                    new Update().set("uniqueViewers", merged.estimate()), TierlistTemplate.class);
+            return true;
+        }
+    }
+}
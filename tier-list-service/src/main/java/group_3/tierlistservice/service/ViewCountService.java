@@ -0,0 +1,105 @@
+package group_3.tierlistservice.service;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import group_3.tierlistservice.model.TierlistTemplate;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind view counting.
+ *
+ * Reads only bump an in-memory LongAdder per template, which stays cheap however many requests
+ * hit the same template at once. The pending counts are flushed periodically as one unordered
+ * bulkWrite of $inc updates, so a flush costs one round trip no matter how many templates were
+ * viewed, and concurrent views can't overwrite each other. A final flush runs on shutdown; views
+ * still pending when the process is killed outright are lost.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ViewCountService {
+
+    private final MongoTemplate mongoTemplate;
+    private final Map<String, LongAdder> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Record one view of a template. Never touches Mongo.
+     */
+    public void recordView(String templateId) {
+        pending.computeIfAbsent(templateId, id -> new LongAdder()).increment();
+    }
+
+    @Scheduled(fixedDelayString = "${tierlist.views.flush-ms:5000}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        log.info("Flushing pending view counts before shutdown");
+        flush();
+    }
+
+    /**
+     * Write all pending view counts in a single bulk operation. Counts that fail to write are
+     * added back so the next flush retries them.
+     */
+    public synchronized void flush() {
+        List<Map.Entry<String, Long>> updates = new ArrayList<>();
+        for (Map.Entry<String, LongAdder> entry : pending.entrySet()) {
+            long views = entry.getValue().sumThenReset();
+            if (views == 0) {
+                // Idle since the last flush; drop the entry so the map only holds active templates.
+                // A view racing this removal could land on the dropped adder, so sweep it once more.
+                if (pending.remove(entry.getKey(), entry.getValue())) {
+                    views = entry.getValue().sumThenReset();
+                }
+            }
+            if (views > 0) {
+                updates.add(Map.entry(entry.getKey(), views));
+            }
+        }
+        if (updates.isEmpty()) {
+            return;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TierlistTemplate.class);
+        for (Map.Entry<String, Long> update : updates) {
+            bulk.updateOne(Query.query(Criteria.where("_id").is(update.getKey())),
+                    new Update().inc("viewCount", update.getValue()));
+        }
+        try {
+            BulkWriteResult result = bulk.execute();
+            log.info("Flushed view counts for {} templates ({} matched)", updates.size(), result.getMatchedCount());
+        } catch (BulkOperationException e) {
+            // Unordered, so everything but the reported failures was applied
+            log.error("Failed to flush {} of {} view count updates", e.getErrors().size(), updates.size());
+            for (BulkWriteError error : e.getErrors()) {
+                requeue(updates.get(error.getIndex()));
+            }
+        } catch (Exception e) {
+            log.error("Failed to flush view counts for {} templates: {}", updates.size(), e.getMessage());
+            updates.forEach(this::requeue);
+        }
+    }
+
+    private void requeue(Map.Entry<String, Long> update) {
+        pending.computeIfAbsent(update.getKey(), id -> new LongAdder()).add(update.getValue());
+    }
+}